@@ -0,0 +1,95 @@
+package org.healthily.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Calls the service over HTTP/1.1 and records every request under its endpoint name, failures included.
+ */
+public final class ApiClient {
+
+    private final HttpClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LoadTestConfig config;
+    private final LatencyRecorder recorder;
+
+    public ApiClient(LoadTestConfig config, LatencyRecorder recorder) {
+        this.config = config;
+        this.recorder = recorder;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.requestTimeout())
+                .build();
+    }
+
+    public JsonNode post(String endpoint, String path, Object body, String accessToken) {
+        String json;
+        try {
+            json = mapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize request for " + endpoint, e);
+        }
+        return send(endpoint, request(path, accessToken)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    public JsonNode get(String endpoint, String path, String accessToken) {
+        return send(endpoint, request(path, accessToken).GET());
+    }
+
+    private HttpRequest.Builder request(String path, String accessToken) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(config.baseUrl().resolve(URI.create(path)))
+                .timeout(config.requestTimeout());
+        if (accessToken != null) {
+            builder.header("Authorization", "Bearer " + accessToken);
+        }
+        return builder;
+    }
+
+    private JsonNode send(String endpoint, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            recorder.recordFailure(endpoint, System.nanoTime() - start, e.getClass().getSimpleName());
+            throw new RequestFailedException(endpoint + " failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(endpoint + " interrupted");
+        }
+
+        long elapsed = System.nanoTime() - start;
+        if (response.statusCode() >= 400) {
+            recorder.recordFailure(endpoint, elapsed, "HTTP " + response.statusCode());
+            throw new RequestFailedException(endpoint + " returned " + response.statusCode());
+        }
+        recorder.record(endpoint, elapsed);
+        if (response.body().isEmpty()) {
+            return MissingNode.getInstance();
+        }
+        try {
+            return mapper.readTree(response.body());
+        } catch (JsonProcessingException e) {
+            throw new RequestFailedException(endpoint + " returned invalid JSON");
+        }
+    }
+
+    /**
+     * Ends the current flow, the failure is already counted against the endpoint.
+     */
+    public static class RequestFailedException extends RuntimeException {
+        public RequestFailedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.healthily.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * One user journey: register, login, start an assessment, answer until a diagnosis, read the result. Each flow
+ * registers a new user, so BCrypt runs twice per flow as it does for a real sign-up.
+ */
+public final class AssessmentFlow {
+
+    static final String FLOW = "flow";
+
+    private final ApiClient api;
+    private final LoadTestConfig config;
+    private final LatencyRecorder recorder;
+    private final String runId;
+    private final AtomicLong users = new AtomicLong();
+
+    public AssessmentFlow(ApiClient api, LoadTestConfig config, LatencyRecorder recorder, String runId) {
+        this.api = api;
+        this.config = config;
+        this.recorder = recorder;
+        this.runId = runId;
+    }
+
+    /**
+     * Runs one flow and records it under {@code flow}, timed from {@code scheduledNanos} so that a generator
+     * falling behind its arrival rate shows up as latency instead of silently lowering the load.
+     */
+    public void run(long scheduledNanos, RandomGenerator random) {
+        try {
+            execute(random);
+            recorder.record(FLOW, System.nanoTime() - scheduledNanos);
+        } catch (ApiClient.RequestFailedException e) {
+            recorder.recordFailure(FLOW, System.nanoTime() - scheduledNanos, "failed");
+        }
+    }
+
+    private void execute(RandomGenerator random) {
+        String email = "loadtest-%s-%d@example.com".formatted(runId, users.incrementAndGet());
+        String password = "LoadTest-" + runId;
+        api.post("register", "/auth/register", Map.of(
+                "email", email,
+                "password", password,
+                "age", 18 + random.nextInt(70),
+                "gender", random.nextBoolean() ? "female" : "male"), null);
+
+        JsonNode login = api.post("login", "/auth/login", Map.of("email", email, "password", password), null);
+        String userId = login.path("user_id").asText();
+        String accessToken = login.path("access_token").asText();
+
+        int symptomCount = random.nextInt(config.initialSymptomsMin(), config.initialSymptomsMax() + 1);
+        List<String> symptoms = config.symptoms().sample(symptomCount, random);
+        JsonNode assessment = api.post("start", "/assessment/start",
+                Map.of("user_id", userId, "initial_symptoms", symptoms), accessToken);
+        String assessmentId = assessment.path("assessment_id").asText();
+
+        String nextQuestion = textOrNull(assessment.path("next_question_id"));
+        for (int asked = 0; nextQuestion != null && asked < config.maxQuestions(); asked++) {
+            String response = random.nextDouble() < config.yesProbability() ? "yes" : "no";
+            assessment = api.post("answer", "/assessment/" + assessmentId + "/answer",
+                    Map.of("question_id", nextQuestion, "response", response), accessToken);
+            nextQuestion = textOrNull(assessment.path("next_question_id"));
+        }
+        if (nextQuestion != null) {
+            throw new ApiClient.RequestFailedException("Assessment " + assessmentId + " did not reach a diagnosis");
+        }
+
+        api.get("result", "/assessment/" + assessmentId + "/result", accessToken);
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node.isTextual() ? node.asText() : null;
+    }
+}
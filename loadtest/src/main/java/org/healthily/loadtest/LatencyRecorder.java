@@ -0,0 +1,69 @@
+package org.healthily.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency per endpoint in HDR histograms with three significant digits, safe to record from any number of threads.
+ * Failed requests are timed too and counted by reason.
+ */
+public final class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final Map<String, EndpointRecorder> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long latencyNanos) {
+        endpoint(endpoint).recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    public void recordFailure(String endpoint, long latencyNanos, String reason) {
+        record(endpoint, latencyNanos);
+        endpoint(endpoint).failures.computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Drops everything recorded so far, called when the warm-up ends.
+     */
+    public void reset() {
+        endpoints.values().forEach(endpoint -> {
+            endpoint.recorder.reset();
+            endpoint.failures.clear();
+        });
+    }
+
+    /**
+     * Everything recorded since the last reset, by endpoint name.
+     */
+    public Map<String, EndpointStats> snapshot() {
+        Map<String, EndpointStats> snapshot = new TreeMap<>();
+        endpoints.forEach((name, endpoint) -> {
+            Map<String, Long> failures = new TreeMap<>();
+            endpoint.failures.forEach((reason, count) -> failures.put(reason, count.sum()));
+            snapshot.put(name, new EndpointStats(endpoint.recorder.getIntervalHistogram(), failures));
+        });
+        return snapshot;
+    }
+
+    private EndpointRecorder endpoint(String name) {
+        return endpoints.computeIfAbsent(name, key -> new EndpointRecorder());
+    }
+
+    public record EndpointStats(Histogram histogram, Map<String, Long> failures) {
+
+        public long failureCount() {
+            return failures.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    private static final class EndpointRecorder {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,101 @@
+package org.healthily.loadtest;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives assessment flows against a running instance and reports latency per endpoint. Exits with status 1 when
+ * an endpoint misses its {@code max-p99} budget, so it can gate a deploy.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load(args);
+        LatencyRecorder recorder = new LatencyRecorder();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        AssessmentFlow flow = new AssessmentFlow(new ApiClient(config, recorder), config, recorder, runId);
+
+        System.out.printf("Load test %s against %s: %s, %s warm-up then %s%n", runId, config.baseUrl(),
+                config.openModel()
+                        ? "%.1f flows/s, at most %d in flight".formatted(config.arrivalRate(), config.concurrency())
+                        : "%d concurrent users".formatted(config.concurrency()),
+                config.warmup(), config.duration());
+
+        long start = System.nanoTime();
+        long warmupEnd = start + config.warmup().toNanos();
+        long end = warmupEnd + config.duration().toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (config.openModel()) {
+                runOpen(config, flow, executor, start, warmupEnd, end, recorder);
+            } else {
+                runClosed(config, flow, executor, warmupEnd, end, recorder);
+            }
+        }
+        // In-flight flows finish after the deadline, so the measured window runs until the executor drained
+        Report report = new Report(recorder.snapshot(), System.nanoTime() - warmupEnd);
+
+        report.print(System.out);
+        report.write(config.reportDir());
+        System.out.printf("Reports written to %s%n", config.reportDir().toAbsolutePath());
+
+        List<String> violations = report.budgetViolations(config.maxP99Millis());
+        if (!violations.isEmpty()) {
+            violations.forEach(violation -> System.err.println("Latency budget exceeded, " + violation));
+            System.exit(1);
+        }
+    }
+
+    // Closed model: each virtual user starts its next flow as soon as the previous one ends
+    private static void runClosed(LoadTestConfig config, AssessmentFlow flow, ExecutorService executor,
+                                  long warmupEnd, long end, LatencyRecorder recorder) {
+        for (int user = 0; user < config.concurrency(); user++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < end) {
+                    flow.run(System.nanoTime(), ThreadLocalRandom.current());
+                }
+            });
+        }
+        sleepUntil(warmupEnd);
+        recorder.reset();
+        sleepUntil(end);
+    }
+
+    // Open model: flows arrive on a fixed schedule whatever the latency, queueing when concurrency is exhausted
+    private static void runOpen(LoadTestConfig config, AssessmentFlow flow, ExecutorService executor,
+                                long start, long warmupEnd, long end, LatencyRecorder recorder) {
+        Semaphore inFlight = new Semaphore(config.concurrency());
+        long interval = Math.round(1_000_000_000.0 / config.arrivalRate());
+        boolean warmedUp = false;
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            sleepUntil(scheduled);
+            if (!warmedUp && scheduled >= warmupEnd) {
+                recorder.reset();
+                warmedUp = true;
+            }
+            long intended = scheduled;
+            executor.execute(() -> {
+                inFlight.acquireUninterruptibly();
+                try {
+                    flow.run(intended, ThreadLocalRandom.current());
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private static void sleepUntil(long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadlineNanos - System.nanoTime();
+        }
+    }
+}
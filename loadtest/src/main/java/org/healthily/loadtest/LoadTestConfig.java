@@ -0,0 +1,96 @@
+package org.healthily.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Load test settings, read from {@code loadtest.properties} and overridden by {@code --key=value} arguments.
+ */
+public record LoadTestConfig(URI baseUrl,
+                             Duration requestTimeout,
+                             int concurrency,
+                             double arrivalRate,
+                             Duration warmup,
+                             Duration duration,
+                             SymptomDistribution symptoms,
+                             int initialSymptomsMin,
+                             int initialSymptomsMax,
+                             double yesProbability,
+                             int maxQuestions,
+                             Path reportDir,
+                             Map<String, Double> maxP99Millis) {
+
+    private static final String MAX_P99_PREFIX = "max-p99.";
+
+    public static LoadTestConfig load(String... args) {
+        Properties properties = new Properties();
+        try (InputStream defaults = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            properties.load(defaults);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read loadtest.properties", e);
+        }
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --key=value, got " + arg);
+            }
+            properties.setProperty(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        Map<String, Double> maxP99Millis = new LinkedHashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(MAX_P99_PREFIX)) {
+                maxP99Millis.put(key.substring(MAX_P99_PREFIX.length()), Double.parseDouble(properties.getProperty(key)));
+            }
+        }
+
+        LoadTestConfig config = new LoadTestConfig(
+                URI.create(required(properties, "base-url")),
+                Duration.parse(required(properties, "request-timeout")),
+                Integer.parseInt(required(properties, "concurrency")),
+                Double.parseDouble(required(properties, "arrival-rate")),
+                Duration.parse(required(properties, "warmup")),
+                Duration.parse(required(properties, "duration")),
+                SymptomDistribution.parse(required(properties, "symptoms")),
+                Integer.parseInt(required(properties, "initial-symptoms-min")),
+                Integer.parseInt(required(properties, "initial-symptoms-max")),
+                Double.parseDouble(required(properties, "yes-probability")),
+                Integer.parseInt(required(properties, "max-questions")),
+                Path.of(required(properties, "report-dir")),
+                maxP99Millis);
+        config.validate();
+        return config;
+    }
+
+    public boolean openModel() {
+        return arrivalRate > 0;
+    }
+
+    private void validate() {
+        if (concurrency < 1 || maxQuestions < 1) {
+            throw new IllegalArgumentException("concurrency and max-questions must be positive");
+        }
+        if (initialSymptomsMin < 1 || initialSymptomsMax < initialSymptomsMin
+                || initialSymptomsMax > symptoms.size()) {
+            throw new IllegalArgumentException("initial-symptoms-min/max must be within 1 and the number of symptoms");
+        }
+        if (yesProbability < 0 || yesProbability > 1) {
+            throw new IllegalArgumentException("yes-probability must be between 0 and 1");
+        }
+    }
+
+    private static String required(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing load test setting " + key);
+        }
+        return value.trim();
+    }
+}
@@ -0,0 +1,102 @@
+package org.healthily.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Percentiles and throughput per endpoint for the measured part of a run. {@link #write} leaves one
+ * {@code <endpoint>.hgrm} percentile distribution per endpoint, loadable in HdrHistogram's plotter, and a
+ * {@code summary.json} for comparing runs.
+ */
+public final class Report {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, LatencyRecorder.EndpointStats> endpoints;
+    private final double seconds;
+
+    public Report(Map<String, LatencyRecorder.EndpointStats> endpoints, long elapsedNanos) {
+        this.endpoints = endpoints;
+        this.seconds = elapsedNanos / 1_000_000_000.0;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%-10s %9s %8s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "failed", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        endpoints.forEach((name, stats) -> {
+            Histogram histogram = stats.histogram();
+            out.printf("%-10s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    name, histogram.getTotalCount(), stats.failureCount(), histogram.getTotalCount() / seconds,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / NANOS_PER_MILLI);
+        });
+        endpoints.forEach((name, stats) -> stats.failures()
+                .forEach((reason, count) -> out.printf("%s failures: %d x %s%n", name, count, reason)));
+
+        LatencyRecorder.EndpointStats flows = endpoints.get(AssessmentFlow.FLOW);
+        if (flows != null) {
+            long completed = flows.histogram().getTotalCount() - flows.failureCount();
+            out.printf("Completed %d assessments in %.0f s, %.2f per second%n", completed, seconds, completed / seconds);
+        }
+    }
+
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("durationSeconds", seconds);
+        Map<String, Object> endpointSummaries = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyRecorder.EndpointStats> entry : endpoints.entrySet()) {
+            Histogram histogram = entry.getValue().histogram();
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("count", histogram.getTotalCount());
+            endpoint.put("failures", entry.getValue().failures());
+            endpoint.put("throughputPerSecond", histogram.getTotalCount() / seconds);
+            for (double percentile : PERCENTILES) {
+                endpoint.put("p" + percentile + "Millis", millis(histogram, percentile));
+            }
+            endpoint.put("maxMillis", histogram.getMaxValue() / NANOS_PER_MILLI);
+            endpointSummaries.put(entry.getKey(), endpoint);
+        }
+        summary.put("endpoints", endpointSummaries);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("summary.json").toFile(), summary);
+    }
+
+    /**
+     * Endpoints whose p99 exceeded its budget, or that were never called although they have one.
+     */
+    public List<String> budgetViolations(Map<String, Double> maxP99Millis) {
+        List<String> violations = new ArrayList<>();
+        maxP99Millis.forEach((name, budget) -> {
+            LatencyRecorder.EndpointStats stats = endpoints.get(name);
+            if (stats == null || stats.histogram().getTotalCount() == 0) {
+                violations.add("%s: no requests recorded".formatted(name));
+                return;
+            }
+            double p99 = millis(stats.histogram(), 99);
+            if (p99 > budget) {
+                violations.add("%s: p99 %.2f ms over the %.2f ms budget".formatted(name, p99, budget));
+            }
+        });
+        return violations;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+}
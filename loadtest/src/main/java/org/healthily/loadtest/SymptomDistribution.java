@@ -0,0 +1,74 @@
+package org.healthily.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted symptom names, parsed from {@code Name:weight,Name:weight}.
+ */
+public final class SymptomDistribution {
+
+    private final List<String> names;
+    private final double[] weights;
+
+    private SymptomDistribution(List<String> names, double[] weights) {
+        this.names = names;
+        this.weights = weights;
+    }
+
+    public static SymptomDistribution parse(String value) {
+        List<String> names = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (String entry : value.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            if (separator < 0) {
+                names.add(entry.trim());
+                weights.add(1.0);
+            } else {
+                names.add(entry.substring(0, separator).trim());
+                weights.add(Double.parseDouble(entry.substring(separator + 1).trim()));
+            }
+        }
+        if (names.isEmpty() || weights.stream().anyMatch(weight -> weight <= 0)) {
+            throw new IllegalArgumentException("symptoms needs at least one entry with a positive weight");
+        }
+        return new SymptomDistribution(List.copyOf(names), weights.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Draws {@code count} distinct symptoms, each draw weighted among the ones not picked yet.
+     */
+    public List<String> sample(int count, RandomGenerator random) {
+        double[] remaining = weights.clone();
+        double total = 0;
+        for (double weight : remaining) {
+            total += weight;
+        }
+
+        List<String> picked = new ArrayList<>(count);
+        while (picked.size() < count) {
+            double target = random.nextDouble(total);
+            // Falls back to the last candidate when rounding leaves target just above the total
+            int index = -1;
+            for (int i = 0; i < remaining.length; i++) {
+                if (remaining[i] == 0) {
+                    continue;
+                }
+                index = i;
+                if (target < remaining[i]) {
+                    break;
+                }
+                target -= remaining[i];
+            }
+            picked.add(names.get(index));
+            total -= remaining[index];
+            remaining[index] = 0;
+        }
+        return picked;
+    }
+}
@@ -0,0 +1,77 @@
+package org.healthily.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long TEN_SECONDS = TimeUnit.SECONDS.toNanos(10);
+
+    @Test
+    void budgetViolations_UseP99_NotMax() {
+        // 99 fast requests and one outlier, so p99 is the fast one
+        Report report = new Report(Map.of("answer", stats(99, MILLI, 1, 100 * MILLI)), TEN_SECONDS);
+
+        assertEquals(List.of(), report.budgetViolations(Map.of("answer", 2.0)));
+        List<String> violations = report.budgetViolations(Map.of("answer", 0.5));
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).startsWith("answer: p99 1.00 ms"), violations.get(0));
+    }
+
+    @Test
+    void budgetViolations_Report_EndpointsNeverCalled() {
+        Report report = new Report(Map.of("answer", stats(10, MILLI, 0, 0)), TEN_SECONDS);
+
+        assertEquals(List.of("start: no requests recorded"), report.budgetViolations(Map.of("start", 5.0)));
+    }
+
+    @Test
+    void print_ComputesThroughput_OverElapsedTime() {
+        Report report = new Report(Map.of("answer", stats(50, MILLI, 0, 0)), TEN_SECONDS);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        report.print(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+
+        String row = buffer.toString(StandardCharsets.UTF_8).lines()
+                .filter(line -> line.startsWith("answer"))
+                .findFirst().orElseThrow();
+        assertTrue(row.matches("answer\\s+50\\s+0\\s+5\\.0\\s.*"), row);
+    }
+
+    @Test
+    void latencyRecorder_CountsFailures_AndForgetsThemOnReset() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record("start", MILLI);
+        recorder.recordFailure("start", 2 * MILLI, "503");
+        recorder.recordFailure("start", 2 * MILLI, "503");
+
+        LatencyRecorder.EndpointStats stats = recorder.snapshot().get("start");
+        assertEquals(3, stats.histogram().getTotalCount());
+        assertEquals(Map.of("503", 2L), stats.failures());
+        assertEquals(2, stats.failureCount());
+
+        recorder.record("start", MILLI);
+        recorder.reset();
+
+        assertEquals(0, recorder.snapshot().get("start").histogram().getTotalCount());
+    }
+
+    private static LatencyRecorder.EndpointStats stats(int fastCount, long fastNanos, int slowCount, long slowNanos) {
+        Histogram histogram = new Histogram(TimeUnit.MINUTES.toNanos(10), 3);
+        histogram.recordValueWithCount(fastNanos, fastCount);
+        if (slowCount > 0) {
+            histogram.recordValueWithCount(slowNanos, slowCount);
+        }
+        return new LatencyRecorder.EndpointStats(histogram, Map.of());
+    }
+}
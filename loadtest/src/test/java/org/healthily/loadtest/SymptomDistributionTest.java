@@ -0,0 +1,48 @@
+package org.healthily.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymptomDistributionTest {
+
+    @Test
+    void parse_DefaultsWeightToOne() {
+        SymptomDistribution distribution = SymptomDistribution.parse("Cough:2, Fever");
+
+        assertEquals(2, distribution.size());
+    }
+
+    @Test
+    void parse_Rejects_NonPositiveWeights() {
+        assertThrows(IllegalArgumentException.class, () -> SymptomDistribution.parse("Cough:0"));
+    }
+
+    @Test
+    void sample_DrawsDistinctSymptoms() {
+        SymptomDistribution distribution = SymptomDistribution.parse("Cough:100,Fever:1,Headache:1");
+
+        List<String> sample = distribution.sample(3, new Random(42));
+
+        assertEquals(3, new HashSet<>(sample).size());
+    }
+
+    @Test
+    void sample_FollowsWeights() {
+        SymptomDistribution distribution = SymptomDistribution.parse("Cough:9,Fever:1");
+        Random random = new Random(7);
+
+        int coughFirst = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (distribution.sample(1, random).get(0).equals("Cough")) {
+                coughFirst++;
+            }
+        }
+
+        assertEquals(9_000, coughFirst, 300);
+    }
+}
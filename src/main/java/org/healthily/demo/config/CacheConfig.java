@@ -1,18 +1,27 @@
 package org.healthily.demo.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.healthily.demo.tracing.TracingCaffeineCache;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final String ASSESSMENT_RESULTS_CACHE = "assessmentResults";
+    public static final String IDEMPOTENT_RESPONSES_CACHE = "idempotentResponses";
+
     @Bean
     public Caffeine caffeineConfig() {
         return Caffeine.newBuilder()
@@ -22,8 +31,40 @@ public class CacheConfig {
 
     @Bean
     public CacheManager cacheManager(Caffeine caffeine) {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Every cache, custom ones included, is created through adaptCaffeineCache, so all lookups are traced
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name,
+                                               com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new TracingCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
         cacheManager.setCaffeine(caffeine);
+        // Created up front rather than on first use, so Actuator binds their size and hit/miss metrics at startup
+        cacheManager.setCacheNames(List.of("conditions", "symptoms", "symptom"));
+        // Completed results are immutable, so they only need a size bound, not a short expiry
+        cacheManager.registerCustomCache(ASSESSMENT_RESULTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .recordStats()
+                .build());
+        // Covers client retries; older duplicates fall back to the conditional writes in DynamoDB
+        cacheManager.registerCustomCache(IDEMPOTENT_RESPONSES_CACHE, Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .recordStats()
+                .build());
         return cacheManager;
     }
+
+    @Bean
+    public MeterBinder cacheHitRatios(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(name -> {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                Gauge.builder("cache.hit.ratio", cache.getNativeCache(), nativeCache -> nativeCache.stats().hitRate())
+                        .tag("cache", name)
+                        .register(registry);
+            }
+        });
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,27 @@
+package org.healthily.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import org.healthily.demo.repository.ConsumedCapacityRecorder;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/dynamodbcapacity}: the endpoint and repository operation pairs that consumed the most DynamoDB
+ * capacity on this instance since startup.
+ */
+@Component
+@Endpoint(id = "dynamodbcapacity")
+@RequiredArgsConstructor
+public class ConsumedCapacityEndpoint {
+
+    private final ConsumedCapacityRecorder consumedCapacityRecorder;
+    private final DynamoDBProperties properties;
+
+    @ReadOperation
+    public List<ConsumedCapacityRecorder.ConsumerUsage> topConsumers() {
+        return consumedCapacityRecorder.topConsumers(properties.getConsumedCapacity().getTopConsumers());
+    }
+}
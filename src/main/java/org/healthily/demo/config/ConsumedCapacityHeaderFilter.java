@@ -0,0 +1,76 @@
+package org.healthily.demo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.healthily.demo.repository.ConsumedCapacityRecorder;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Adds the DynamoDB capacity consumed while serving a request as a response header, for example
+ * {@code X-DynamoDB-Consumed-Capacity: total=1.5; getAssessment=0.5; updateAssessment=1.0}. The header is set just
+ * before the response commits, or once the chain returns for responses without a body such as 204 and 304.
+ */
+public class ConsumedCapacityHeaderFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-DynamoDB-Consumed-Capacity";
+
+    private final DynamoDBProperties properties;
+
+    public ConsumedCapacityHeaderFilter(DynamoDBProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.getConsumedCapacity().isDebugHeader();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HeaderWritingResponse wrapped = new HeaderWritingResponse(request, response);
+        chain.doFilter(request, wrapped);
+        wrapped.writeHeader();
+    }
+
+    private static String summary(Object usage) {
+        if (!(usage instanceof Map<?, ?> byOperation)) {
+            return "total=0";
+        }
+        double total = byOperation.values().stream().mapToDouble(units -> (Double) units).sum();
+        return byOperation.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining("; ", "total=" + total + "; ", ""));
+    }
+
+    private static final class HeaderWritingResponse extends OnCommittedResponseWrapper {
+
+        private final HttpServletRequest request;
+        private boolean written;
+
+        private HeaderWritingResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        private void writeHeader() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(HEADER, summary(request.getAttribute(ConsumedCapacityRecorder.REQUEST_ATTRIBUTE)));
+        }
+    }
+}
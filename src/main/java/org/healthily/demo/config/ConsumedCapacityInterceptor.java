@@ -0,0 +1,68 @@
+package org.healthily.demo.config;
+
+import org.healthily.demo.repository.ConsumedCapacityRecorder;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+/**
+ * Asks DynamoDB to report consumed capacity, broken down by table and index, on every data plane call, so no
+ * repository has to remember to set it, and hands what comes back to {@link ConsumedCapacityRecorder}. Recording here
+ * rather than in the repositories also covers calls whose result is thrown away, such as failed conditional writes
+ * and the losing attempt of a hedged read.
+ */
+public class ConsumedCapacityInterceptor implements ExecutionInterceptor {
+
+    private static final ReturnConsumedCapacity MODE = ReturnConsumedCapacity.INDEXES;
+
+    private final ConsumedCapacityRecorder recorder;
+
+    public ConsumedCapacityInterceptor(ConsumedCapacityRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        return switch (context.request()) {
+            case GetItemRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case PutItemRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case UpdateItemRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case DeleteItemRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case QueryRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case ScanRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case BatchGetItemRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case BatchWriteItemRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case TransactGetItemsRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            case TransactWriteItemsRequest request -> request.toBuilder().returnConsumedCapacity(MODE).build();
+            default -> context.request();
+        };
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        recorder.record(operationName(executionAttributes), context.response());
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        recorder.recordFailure(operationName(executionAttributes), context.request(), context.exception());
+    }
+
+    // Only used for calls made outside a repository, e.g. by the initializer
+    private static String operationName(ExecutionAttributes executionAttributes) {
+        return executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+    }
+}
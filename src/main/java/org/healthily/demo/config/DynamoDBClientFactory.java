@@ -0,0 +1,101 @@
+package org.healthily.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import org.healthily.demo.repository.ConsumedCapacityRecorder;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.crt.TcpKeepAliveConfiguration;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.retries.api.BackoffStrategy;
+import software.amazon.awssdk.retries.api.RetryStrategy;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Builds DynamoDB clients for a given HTTP transport using the tuning in {@link DynamoDBProperties}.
+ * Kept separate from {@link DynamoDBConfig} so the transport benchmark can build one client per transport.
+ */
+@Component
+@RequiredArgsConstructor
+public class DynamoDBClientFactory {
+
+    private final DynamoDBProperties properties;
+    private final ConsumedCapacityRecorder consumedCapacityRecorder;
+
+    public DynamoDbClient create(DynamoDBProperties.Transport transport, List<MetricPublisher> metricPublishers) {
+        ClientOverrideConfiguration overrideConfiguration = ClientOverrideConfiguration.builder()
+                .apiCallTimeout(properties.getApiCallTimeout())
+                .apiCallAttemptTimeout(properties.getApiCallAttemptTimeout())
+                .retryStrategy(retryStrategy())
+                .metricPublishers(metricPublishers)
+                .addExecutionInterceptor(new ConsumedCapacityInterceptor(consumedCapacityRecorder))
+                .build();
+
+        return DynamoDbClient.builder()
+                .endpointOverride(URI.create(properties.getEndpoint()))
+                .credentialsProvider(
+                        StaticCredentialsProvider.create(AwsBasicCredentials.create("dummy", "dummy")))
+                .region(Region.of(properties.getRegion()))
+                .httpClientBuilder(httpClientBuilder(transport))
+                .overrideConfiguration(overrideConfiguration)
+                .build();
+    }
+
+    private SdkHttpClient.Builder<?> httpClientBuilder(DynamoDBProperties.Transport transport) {
+        DynamoDBProperties.Http http = properties.getHttp();
+        return switch (transport) {
+            case APACHE -> ApacheHttpClient.builder()
+                    .maxConnections(http.getMaxConnections())
+                    .connectionTimeout(http.getConnectionTimeout())
+                    .socketTimeout(http.getSocketTimeout())
+                    .connectionAcquisitionTimeout(http.getConnectionAcquisitionTimeout())
+                    .connectionTimeToLive(http.getConnectionTtl())
+                    .connectionMaxIdleTime(http.getConnectionMaxIdleTime())
+                    .tcpKeepAlive(http.isTcpKeepAlive());
+            // HttpURLConnection has no pool of its own, keep-alive reuse is governed by the JDK (http.maxConnections)
+            case URL_CONNECTION -> UrlConnectionHttpClient.builder()
+                    .connectionTimeout(http.getConnectionTimeout())
+                    .socketTimeout(http.getSocketTimeout());
+            case CRT -> {
+                AwsCrtHttpClient.Builder builder = AwsCrtHttpClient.builder()
+                        .maxConcurrency(http.getMaxConnections())
+                        .connectionTimeout(http.getConnectionTimeout())
+                        .connectionAcquisitionTimeout(http.getConnectionAcquisitionTimeout())
+                        .connectionMaxIdleTime(http.getConnectionMaxIdleTime());
+                if (http.isTcpKeepAlive()) {
+                    builder.tcpKeepAliveConfiguration(TcpKeepAliveConfiguration.builder()
+                            .keepAliveInterval(http.getTcpKeepAliveInterval())
+                            .keepAliveTimeout(http.getTcpKeepAliveTimeout())
+                            .build());
+                }
+                yield builder;
+            }
+        };
+    }
+
+    private RetryStrategy retryStrategy() {
+        DynamoDBProperties.Retry retry = properties.getRetry();
+        BackoffStrategy backoffStrategy = BackoffStrategy.exponentialDelay(retry.getBaseDelay(), retry.getMaxBackoff());
+        return switch (retry.getMode()) {
+            case STANDARD -> AwsRetryStrategy.standardRetryStrategy().toBuilder()
+                    .maxAttempts(retry.getMaxAttempts())
+                    .backoffStrategy(backoffStrategy)
+                    .build();
+            case ADAPTIVE -> AwsRetryStrategy.adaptiveRetryStrategy().toBuilder()
+                    .maxAttempts(retry.getMaxAttempts())
+                    .backoffStrategy(backoffStrategy)
+                    .build();
+            case NONE -> AwsRetryStrategy.doNotRetry();
+        };
+    }
+}
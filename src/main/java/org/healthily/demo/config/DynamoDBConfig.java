@@ -1,31 +1,36 @@
 package org.healthily.demo.config;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.util.List;
 
 @Configuration
+@EnableConfigurationProperties(DynamoDBProperties.class)
 public class DynamoDBConfig {
 
-    @Value("${aws.dynamodb.endpoint}")
-    private String dynamoDbEndpoint;
-
+    // Not created for the in-memory backend, so nothing can reach for DynamoDB there
     @Bean
-    public DynamoDbClient amazonDynamoDB() throws URISyntaxException {
+    @Profile("!in-memory")
+    public DynamoDbClient amazonDynamoDB(DynamoDBProperties properties,
+                                         DynamoDBClientFactory clientFactory,
+                                         SdkPoolMetricsPublisher poolMetricsPublisher) {
+        return clientFactory.create(properties.getHttp().getTransport(), List.of(poolMetricsPublisher));
+    }
 
-        return DynamoDbClient.builder()
-                .endpointOverride(new URI(dynamoDbEndpoint))
-                .credentialsProvider(
-                        StaticCredentialsProvider.create(AwsBasicCredentials.create("dummy", "dummy")))
-                .region(Region.of("eu-west-1"))
-                .build();
+    // Outermost after tracing, so the header also reaches responses written by the security chain
+    @Bean
+    public FilterRegistrationBean<ConsumedCapacityHeaderFilter> consumedCapacityHeaderFilter(
+            DynamoDBProperties properties) {
+        FilterRegistrationBean<ConsumedCapacityHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ConsumedCapacityHeaderFilter(properties));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
     }
 
 }
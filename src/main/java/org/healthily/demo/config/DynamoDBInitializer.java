@@ -2,27 +2,56 @@ package org.healthily.demo.config;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.repository.CatalogSeed;
+import org.healthily.demo.repository.dynamodb.DynamoDBUserRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.retry.backoff.FixedDelayBackoffStrategy;
+import software.amazon.awssdk.core.waiters.WaiterOverrideConfiguration;
+import software.amazon.awssdk.core.waiters.WaiterResponse;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
 
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * Initializes DynamoDB tables and loads demo data on application startup.
  * The table creation would be done automatically by the IaC components, this is just for demo purposes.
+ * Several instances may start at once against the same tables, every step tolerates the others.
  */
 @Component
 @Slf4j
+@Profile("!in-memory")
+@Order(Ordered.HIGHEST_PRECEDENCE)
 @RequiredArgsConstructor
 public class DynamoDBInitializer implements CommandLineRunner {
 
+    private static final String USER_ASSESSMENTS_INDEX = "user_id-created_at-index";
+    private static final String CATALOG_VERSION_ID = "CATALOG#VERSION";
+    private static final String EMAIL_GUARDS_BACKFILL_ID = "MIGRATION#EMAIL_GUARDS";
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+    private static final int MAX_BATCH_WRITE_ATTEMPTS = 8;
+    // Polled every second for up to five minutes, the SDK default polls every 20 seconds
+    private static final WaiterOverrideConfiguration TABLE_WAIT = WaiterOverrideConfiguration.builder()
+            .backoffStrategy(FixedDelayBackoffStrategy.create(Duration.ofSeconds(1)))
+            .maxAttempts(300)
+            .build();
+
     @Value("${dynamodb.table.health_data}")
     private String healthDataTable;
 
@@ -32,155 +61,358 @@ public class DynamoDBInitializer implements CommandLineRunner {
     @Value("${dynamodb.table.assessments}")
     private String assessmentsTable;
 
+    @Value("${dynamodb.table.assessments_archive}")
+    private String assessmentsArchiveTable;
+
+    @Value("${dynamodb.table.refresh_tokens}")
+    private String refreshTokensTable;
+
+    @Value("${dynamodb.table.revoked_tokens}")
+    private String revokedTokensTable;
+
     private final DynamoDbClient dynamoDB;
 
     @Override
     public void run(String... args) {
         createTablesIfNotExist();
-        initializeHealthData();
+        backfillEmailGuards();
+        seedHealthData();
         log.info("Data population completed.");
     }
 
+    // Tables are independent, so they are created and awaited side by side
     private void createTablesIfNotExist() {
-        createSingleIndexTable(healthDataTable, "id", ScalarAttributeType.S);
-        createSingleIndexTable(assessmentsTable, "id", ScalarAttributeType.S);
-        createUsersTable();
-    }
+        List<Runnable> tables = List.of(
+                () -> ensureTable(singleKeyTable(healthDataTable)),
+                this::ensureAssessmentsTable,
+                () -> ensureTable(singleKeyTable(assessmentsArchiveTable)),
+                () -> {
+                    ensureTable(singleKeyTable(refreshTokensTable));
+                    enableTtl(refreshTokensTable);
+                },
+                () -> {
+                    ensureTable(revokedTokensTable());
+                    enableTtl(revokedTokensTable);
+                },
+                () -> ensureTable(usersTable()));
 
-    private void createUsersTable() {
-        try {
-            DescribeTableResponse describeTableResult = dynamoDB.describeTable(DescribeTableRequest.builder()
-                    .tableName(usersTable).build());
-            log.info("Table {} already exists. Status: {}",
-                    usersTable,
-                    describeTableResult.table().tableStatus());
-        } catch (ResourceNotFoundException e) {
-            GlobalSecondaryIndex emailIndex = GlobalSecondaryIndex.builder()
-                    .indexName("email-index")
-                    .keySchema(List.of(
-                            KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("email").build()
-                    ))
-                    .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
-                    .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(1L).writeCapacityUnits(1L).build())
-                    .build();
-
-            CreateTableRequest createTableRequest = CreateTableRequest.builder()
-                    .tableName(usersTable)
-                    .keySchema(List.of(
-                            KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("id").build()
-                    ))
-                    .attributeDefinitions(Arrays.asList(
-                            AttributeDefinition.builder().attributeName("id").attributeType(ScalarAttributeType.S).build(),
-                            AttributeDefinition.builder().attributeName("email").attributeType(ScalarAttributeType.S).build()
-                    ))
-                    .globalSecondaryIndexes(emailIndex)
-                    .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build())
-                    .build();
-            try {
-                dynamoDB.createTable(createTableRequest);
-                log.info("Table {} created successfully.", usersTable);
-            } catch (AwsServiceException ase) {
-                log.error("Failed to create table {}: {}", usersTable, ase.getMessage());
-                throw ase;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> pending = tables.stream().<Future<?>>map(executor::submit).toList();
+            for (Future<?> table : pending) {
+                table.get();
             }
-
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while creating tables", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to create tables", e.getCause());
         }
     }
 
-    private void createSingleIndexTable(String tableName, String keyName, ScalarAttributeType keyType) {
+    /**
+     * Creates the table unless it exists and waits until it is ACTIVE, also when another instance is creating it.
+     */
+    private TableDescription ensureTable(CreateTableRequest request) {
+        String tableName = request.tableName();
         try {
-            DescribeTableResponse describeTableResult = dynamoDB.describeTable((DescribeTableRequest.builder()
-                    .tableName(tableName).build()));
-            log.info("Table {} already exists. Status: {}",
-                    tableName,
-                    describeTableResult.table().tableStatus());
+            TableDescription table = dynamoDB.describeTable(DescribeTableRequest.builder()
+                    .tableName(tableName).build()).table();
+            if (table.tableStatus() == TableStatus.ACTIVE) {
+                log.info("Table {} already exists.", tableName);
+                return table;
+            }
+            log.info("Table {} exists with status {}, waiting for it", tableName, table.tableStatus());
         } catch (ResourceNotFoundException e) {
             log.info("Table {} does not exist. Creating table...", tableName);
-
-            CreateTableRequest createTableRequest = CreateTableRequest.builder()
-                    .tableName(tableName)
-                    .attributeDefinitions(AttributeDefinition.builder().attributeName(keyName).attributeType(keyType).build())
-                    .keySchema(KeySchemaElement.builder().attributeName(keyName).keyType(KeyType.HASH).build())
-                    .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build())
-                    .build();
-
             try {
-                dynamoDB.createTable(createTableRequest);
-                log.info("Table {} created successfully.", tableName);
+                dynamoDB.createTable(request);
+            } catch (ResourceInUseException inUse) {
+                log.info("Table {} is being created by another instance", tableName);
             } catch (AwsServiceException ase) {
                 log.error("Failed to create table {}: {}", tableName, ase.getMessage());
                 throw ase;
             }
         }
+        return awaitActive(tableName);
+    }
+
+    private TableDescription awaitActive(String tableName) {
+        long start = System.nanoTime();
+        try (DynamoDbWaiter waiter = dynamoDB.waiter()) {
+            WaiterResponse<DescribeTableResponse> response = waiter.waitUntilTableExists(
+                    DescribeTableRequest.builder().tableName(tableName).build(), TABLE_WAIT);
+            TableDescription table = response.matched().response()
+                    .orElseThrow(() -> new IllegalStateException("Table %s did not become active".formatted(tableName),
+                            response.matched().exception().orElse(null)))
+                    .table();
+            log.info("Table {} active after {} ms", tableName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return table;
+        }
+    }
+
+    private void enableTtl(String tableName) {
+        TimeToLiveStatus status = dynamoDB.describeTimeToLive(DescribeTimeToLiveRequest.builder()
+                        .tableName(tableName).build())
+                .timeToLiveDescription()
+                .timeToLiveStatus();
+        if (status == TimeToLiveStatus.ENABLED || status == TimeToLiveStatus.ENABLING) {
+            return;
+        }
+        log.info("Enabling TTL on table {}", tableName);
+        dynamoDB.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                .tableName(tableName)
+                .timeToLiveSpecification(TimeToLiveSpecification.builder()
+                        .attributeName("expires_at")
+                        .enabled(true)
+                        .build())
+                .build());
+    }
+
+    private void ensureAssessmentsTable() {
+        TableDescription table = ensureTable(CreateTableRequest.builder()
+                .tableName(assessmentsTable)
+                .keySchema(KeySchemaElement.builder().attributeName("id").keyType(KeyType.HASH).build())
+                .attributeDefinitions(assessmentAttributeDefinitions())
+                .globalSecondaryIndexes(userAssessmentsIndex())
+                .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build())
+                .build());
+        boolean hasUserIndex = table.globalSecondaryIndexes().stream()
+                .anyMatch(index -> USER_ASSESSMENTS_INDEX.equals(index.indexName()));
+        if (!hasUserIndex) {
+            addUserAssessmentsIndex();
+            // The index backfills in the background, only the table has to be ACTIVE again for the TTL update
+            awaitActive(assessmentsTable);
+        }
+        // Completed assessments carry an expires_at attribute once they have been archived
+        enableTtl(assessmentsTable);
     }
 
-    private void initializeHealthData() {
-        initializeConditions();
-        initializeSymptoms();
+    // Tables created before the history endpoint existed only have the primary key
+    private void addUserAssessmentsIndex() {
+        log.info("Adding index {} to table {}", USER_ASSESSMENTS_INDEX, assessmentsTable);
+        GlobalSecondaryIndex index = userAssessmentsIndex();
+        try {
+            dynamoDB.updateTable(UpdateTableRequest.builder()
+                    .tableName(assessmentsTable)
+                    .attributeDefinitions(assessmentAttributeDefinitions())
+                    .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                            .create(CreateGlobalSecondaryIndexAction.builder()
+                                    .indexName(index.indexName())
+                                    .keySchema(index.keySchema())
+                                    .projection(index.projection())
+                                    .provisionedThroughput(index.provisionedThroughput())
+                                    .build())
+                            .build())
+                    .build());
+        } catch (AwsServiceException ase) {
+            log.error("Failed to add index {} to table {}: {}", USER_ASSESSMENTS_INDEX, assessmentsTable, ase.getMessage());
+            throw ase;
+        }
     }
 
-    private void initializeConditions() {
-        putConditionItem("Common Cold", "0.5");
-        putConditionItem("Hayfever", "0.3");
-        putConditionItem("COVID-19", "0.2");
+    private List<AttributeDefinition> assessmentAttributeDefinitions() {
+        return List.of(
+                AttributeDefinition.builder().attributeName("id").attributeType(ScalarAttributeType.S).build(),
+                AttributeDefinition.builder().attributeName("user_id").attributeType(ScalarAttributeType.S).build(),
+                AttributeDefinition.builder().attributeName("created_at").attributeType(ScalarAttributeType.N).build()
+        );
     }
 
-    private void initializeSymptoms() {
-        putSymptomItem("Sneezing", Map.of("Hayfever", "0.9", "COVID-19", "0.1", "Common Cold", "0.7"));
-        putSymptomItem("Runny nose", Map.of("Hayfever", "0.85", "COVID-19", "0.2", "Common Cold", "0.8"));
-        putSymptomItem("Nasal congestion", Map.of("Hayfever", "0.75", "COVID-19", "0.4", "Common Cold", "0.85"));
-        putSymptomItem("Cough", Map.of("Hayfever", "0.1", "COVID-19", "0.7", "Common Cold", "0.6"));
-        putSymptomItem("Fever", Map.of("Hayfever", "0.0", "COVID-19", "0.85", "Common Cold", "0.1"));
-        putSymptomItem("Sore throat", Map.of("Hayfever", "0.05", "COVID-19", "0.65", "Common Cold", "0.75"));
-        putSymptomItem("Loss of smell or taste", Map.of("Hayfever", "0.05", "COVID-19", "0.8", "Common Cold", "0.05"));
-        putSymptomItem("Headache", Map.of("Hayfever", "0.3", "COVID-19", "0.6", "Common Cold", "0.4"));
-        putSymptomItem("Fatigue", Map.of("Hayfever", "0.2", "COVID-19", "0.75", "Common Cold", "0.3"));
-        putSymptomItem("Watery or itchy eyes", Map.of("Hayfever", "0.95", "COVID-19", "0.05", "Common Cold", "0.1"));
-        putSymptomItem("Shortness of breath", Map.of("Hayfever", "0.05", "COVID-19", "0.5", "Common Cold", "0.05"));
+    // Only the summary fields are projected, the history endpoint never reads probabilities
+    private GlobalSecondaryIndex userAssessmentsIndex() {
+        return GlobalSecondaryIndex.builder()
+                .indexName(USER_ASSESSMENTS_INDEX)
+                .keySchema(List.of(
+                        KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("user_id").build(),
+                        KeySchemaElement.builder().keyType(KeyType.RANGE).attributeName("created_at").build()
+                ))
+                .projection(Projection.builder()
+                        .projectionType(ProjectionType.INCLUDE)
+                        .nonKeyAttributes("status", "diagnosis", "initial_symptoms")
+                        .build())
+                .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build())
+                .build();
+    }
 
+    // One partition sorted by revocation time, read incrementally by every node
+    private CreateTableRequest revokedTokensTable() {
+        return CreateTableRequest.builder()
+                .tableName(revokedTokensTable)
+                .keySchema(List.of(
+                        KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("pk").build(),
+                        KeySchemaElement.builder().keyType(KeyType.RANGE).attributeName("sk").build()
+                ))
+                .attributeDefinitions(List.of(
+                        AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("sk").attributeType(ScalarAttributeType.S).build()
+                ))
+                .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build())
+                .build();
     }
 
-    private void putConditionItem(String conditionName, String prevalence) {
-        Map<String, AttributeValue> item = new HashMap<>();
-        item.put("id", AttributeValue.builder().s("CONDITION#" + conditionName).build());
-        item.put("entityType", AttributeValue.builder().s("CONDITION").build());
-        item.put("prevalence", AttributeValue.builder().n(String.valueOf(prevalence)).build());
+    private CreateTableRequest usersTable() {
+        GlobalSecondaryIndex emailIndex = GlobalSecondaryIndex.builder()
+                .indexName("email-index")
+                .keySchema(List.of(
+                        KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("email").build()
+                ))
+                .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(1L).writeCapacityUnits(1L).build())
+                .build();
 
-        PutItemRequest putItemRequest = PutItemRequest.builder()
-                .tableName(healthDataTable)
-                .item(item)
+        return CreateTableRequest.builder()
+                .tableName(usersTable)
+                .keySchema(List.of(
+                        KeySchemaElement.builder().keyType(KeyType.HASH).attributeName("id").build()
+                ))
+                .attributeDefinitions(List.of(
+                        AttributeDefinition.builder().attributeName("id").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("email").attributeType(ScalarAttributeType.S).build()
+                ))
+                .globalSecondaryIndexes(emailIndex)
+                .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build())
                 .build();
+    }
 
+    private CreateTableRequest singleKeyTable(String tableName) {
+        return CreateTableRequest.builder()
+                .tableName(tableName)
+                .attributeDefinitions(AttributeDefinition.builder().attributeName("id").attributeType(ScalarAttributeType.S).build())
+                .keySchema(KeySchemaElement.builder().attributeName("id").keyType(KeyType.HASH).build())
+                .provisionedThroughput(ProvisionedThroughput.builder().readCapacityUnits(5L).writeCapacityUnits(5L).build())
+                .build();
+    }
+
+    /**
+     * Writes the {@code EMAIL#} guard item of every user registered before registration wrote one, so the conditional
+     * transaction in {@link DynamoDBUserRepository#createUser} alone keeps emails unique. Runs once, a marker item is
+     * written when every user has been covered and a failed run is redone on the next start.
+     */
+    private void backfillEmailGuards() {
+        Map<String, AttributeValue> key = Map.of("id", AttributeValue.builder().s(EMAIL_GUARDS_BACKFILL_ID).build());
         try {
-            dynamoDB.putItem(putItemRequest);
-            log.info("Inserted condition: {}", conditionName);
+            boolean done = dynamoDB.getItem(GetItemRequest.builder()
+                    .tableName(usersTable)
+                    .key(key)
+                    .consistentRead(true)
+                    .build()).hasItem();
+            if (done) {
+                return;
+            }
+
+            int written = 0;
+            ScanRequest scan = ScanRequest.builder()
+                    .tableName(usersTable)
+                    .filterExpression("entityType = :user")
+                    .projectionExpression("id, email")
+                    .expressionAttributeValues(Map.of(":user", AttributeValue.builder().s("USER").build()))
+                    .consistentRead(true)
+                    .build();
+            for (Map<String, AttributeValue> user : dynamoDB.scanPaginator(scan).items()) {
+                try {
+                    dynamoDB.putItem(PutItemRequest.builder()
+                            .tableName(usersTable)
+                            .item(DynamoDBUserRepository.emailGuard(user.get("email").s(), user.get("id").s()))
+                            .conditionExpression("attribute_not_exists(id)")
+                            .build());
+                    written++;
+                } catch (ConditionalCheckFailedException e) {
+                    // Registered with a guard already, or a second legacy user with the same email
+                }
+            }
+
+            Map<String, AttributeValue> marker = new HashMap<>(key);
+            marker.put("entityType", AttributeValue.builder().s("MIGRATION").build());
+            marker.put("completed_at", AttributeValue.builder().n(String.valueOf(System.currentTimeMillis())).build());
+            dynamoDB.putItem(PutItemRequest.builder()
+                    .tableName(usersTable)
+                    .item(marker)
+                    .build());
+            log.info("Backfilled {} email guard items", written);
         } catch (AwsServiceException e) {
-            log.error("Error inserting condition {}: {}", conditionName, e.getMessage());
+            log.error("Error backfilling email guard items, it is retried on the next start: {}", e.getMessage());
         }
     }
 
-    private void putSymptomItem(String symptomName, Map<String, String> conditionsMap) {
-        Map<String, AttributeValue> item = new HashMap<>();
+    /**
+     * Seeds the catalog unless the version item already holds the checksum of {@link CatalogSeed}, so a restart costs
+     * one GetItem. Items are written in batches and the version item last, so an interrupted seed is redone.
+     */
+    private void seedHealthData() {
+        String checksum = CatalogSeed.checksum();
+        Map<String, AttributeValue> key = Map.of("id", AttributeValue.builder().s(CATALOG_VERSION_ID).build());
+        try {
+            Map<String, AttributeValue> version = dynamoDB.getItem(GetItemRequest.builder()
+                    .tableName(healthDataTable)
+                    .key(key)
+                    .consistentRead(true)
+                    .build()).item();
+            if (version.containsKey("checksum") && checksum.equals(version.get("checksum").s())) {
+                log.info("Catalog {} already seeded, skipping", checksum);
+                return;
+            }
 
-        item.put("id", AttributeValue.builder().s("SYMPTOM#" + symptomName).build());
-        item.put("entityType", AttributeValue.builder().s("SYMPTOM").build());
+            List<WriteRequest> writes = Stream.concat(
+                            CatalogSeed.CONDITIONS.stream().map(CatalogSeed.Condition::toItem),
+                            CatalogSeed.SYMPTOMS.stream().map(CatalogSeed.Symptom::toItem))
+                    .map(item -> WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build())
+                    .toList();
+            for (int from = 0; from < writes.size(); from += MAX_BATCH_WRITE_ITEMS) {
+                int to = Math.min(writes.size(), from + MAX_BATCH_WRITE_ITEMS);
+                int unprocessed = batchWrite(writes.subList(from, to));
+                if (unprocessed > 0) {
+                    log.error("Catalog seeding left {} items unprocessed, it is retried on the next start",
+                            unprocessed);
+                    return;
+                }
+            }
 
-        Map<String, AttributeValue> conditionsAttributeMap = new HashMap<>();
-        for (Map.Entry<String, String> entry : conditionsMap.entrySet()) {
-            conditionsAttributeMap.put(entry.getKey(), AttributeValue.builder().n(entry.getValue()).build());
+            Map<String, AttributeValue> versionItem = new HashMap<>(key);
+            versionItem.put("entityType", AttributeValue.builder().s("CATALOG_VERSION").build());
+            versionItem.put("checksum", AttributeValue.builder().s(checksum).build());
+            versionItem.put("seeded_at", AttributeValue.builder().n(String.valueOf(System.currentTimeMillis())).build());
+            dynamoDB.putItem(PutItemRequest.builder()
+                    .tableName(healthDataTable)
+                    .item(versionItem)
+                    .build());
+            log.info("Seeded catalog {}: {} conditions, {} symptoms",
+                    checksum, CatalogSeed.CONDITIONS.size(), CatalogSeed.SYMPTOMS.size());
+        } catch (AwsServiceException e) {
+            log.error("Error seeding the catalog, it is retried on the next start: {}", e.getMessage());
         }
-        item.put("conditions", AttributeValue.builder().m(conditionsAttributeMap).build());
+    }
 
-        PutItemRequest putItemRequest = PutItemRequest.builder()
-                .tableName(healthDataTable)
-                .item(item)
-                .build();
+    /**
+     * @return the number of items still unprocessed after the last attempt, so sustained throttling is reported to
+     * the caller instead of aborting startup
+     */
+    private int batchWrite(List<WriteRequest> writes) {
+        Map<String, List<WriteRequest>> pending = Map.of(healthDataTable, writes);
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > MAX_BATCH_WRITE_ATTEMPTS) {
+                return pending.values().stream().mapToInt(List::size).sum();
+            }
+            if (attempt > 1) {
+                backOff(attempt);
+            }
+            Map<String, List<WriteRequest>> requestItems = pending;
+            pending = dynamoDB.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(requestItems)
+                    .build()).unprocessedItems();
+        }
+        return 0;
+    }
 
+    // Unprocessed items mean the table is throttling, retried after 50, 100, 200... ms
+    private static void backOff(int attempt) {
         try {
-            dynamoDB.putItem(putItemRequest);
-            log.info("Inserted symptom: {}", symptomName);
-        } catch (AwsServiceException e) {
-            log.error("Error inserting symptom {}: {}", symptomName, e.getMessage());
+            Thread.sleep(50L << (attempt - 2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while seeding the catalog", e);
         }
     }
 }
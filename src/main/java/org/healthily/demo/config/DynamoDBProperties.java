@@ -0,0 +1,79 @@
+package org.healthily.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Client side settings for the DynamoDB SDK client: endpoint, HTTP transport, timeouts and retries.
+ * Everything that moves tail latency should be tunable here without a code change.
+ */
+@Data
+@ConfigurationProperties(prefix = "aws.dynamodb")
+public class DynamoDBProperties {
+
+    private String endpoint;
+    private String region = "eu-west-1";
+
+    // Upper bound for a whole API call, retries included
+    private Duration apiCallTimeout = Duration.ofSeconds(5);
+
+    // Upper bound for a single HTTP attempt
+    private Duration apiCallAttemptTimeout = Duration.ofSeconds(2);
+
+    private Http http = new Http();
+    private Retry retry = new Retry();
+    private Benchmark benchmark = new Benchmark();
+    private ConsumedCapacity consumedCapacity = new ConsumedCapacity();
+
+    public enum Transport {
+        APACHE,
+        URL_CONNECTION,
+        CRT
+    }
+
+    @Data
+    public static class Http {
+        private Transport transport = Transport.APACHE;
+        private int maxConnections = 50;
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+        private Duration socketTimeout = Duration.ofSeconds(2);
+        private Duration connectionAcquisitionTimeout = Duration.ofSeconds(1);
+        // Not supported by the CRT client, connections there are only recycled when idle
+        private Duration connectionTtl = Duration.ofMinutes(5);
+        private Duration connectionMaxIdleTime = Duration.ofSeconds(60);
+        private boolean tcpKeepAlive = true;
+        private Duration tcpKeepAliveInterval = Duration.ofSeconds(30);
+        private Duration tcpKeepAliveTimeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class ConsumedCapacity {
+        // Adds the capacity consumed by a request to its response headers, only meant for debugging
+        private boolean debugHeader = false;
+        private int topConsumers = 20;
+    }
+
+    @Data
+    public static class Retry {
+        private Mode mode = Mode.STANDARD;
+        private int maxAttempts = 3;
+        private Duration baseDelay = Duration.ofMillis(25);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+
+        public enum Mode {
+            STANDARD,
+            ADAPTIVE,
+            NONE
+        }
+    }
+
+    @Data
+    public static class Benchmark {
+        private int warmupRequests = 200;
+        private int requests = 2000;
+        private int concurrency = 8;
+        private String key = "SYMPTOM#Cough";
+    }
+}
@@ -0,0 +1,76 @@
+package org.healthily.demo.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports the connection pool utilization reported by the SDK HTTP client after every call.
+ * The URL connection transport does not report pool metrics, so the gauges stay at zero for it.
+ */
+@Component
+public class SdkPoolMetricsPublisher implements MetricPublisher {
+
+    private static final String HTTP_CLIENT_COLLECTION = "HttpClient";
+
+    private final AtomicInteger maxConcurrency = new AtomicInteger();
+    private final AtomicInteger leasedConcurrency = new AtomicInteger();
+    private final AtomicInteger availableConcurrency = new AtomicInteger();
+    private final AtomicInteger pendingAcquires = new AtomicInteger();
+    private final Timer acquireTimer;
+
+    public SdkPoolMetricsPublisher(MeterRegistry registry) {
+        Gauge.builder("dynamodb.http.pool.max", maxConcurrency, AtomicInteger::get)
+                .description("Maximum number of connections in the SDK pool")
+                .register(registry);
+        Gauge.builder("dynamodb.http.pool.leased", leasedConcurrency, AtomicInteger::get)
+                .description("Connections currently leased from the SDK pool")
+                .register(registry);
+        Gauge.builder("dynamodb.http.pool.available", availableConcurrency, AtomicInteger::get)
+                .description("Idle connections available in the SDK pool")
+                .register(registry);
+        Gauge.builder("dynamodb.http.pool.pending", pendingAcquires, AtomicInteger::get)
+                .description("Requests waiting for a connection from the SDK pool")
+                .register(registry);
+        acquireTimer = Timer.builder("dynamodb.http.pool.acquire")
+                .description("Time spent waiting for a connection from the SDK pool")
+                .register(registry);
+    }
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        if (HTTP_CLIENT_COLLECTION.equals(metricCollection.name())) {
+            record(metricCollection);
+        }
+        metricCollection.children().forEach(this::publish);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to flush, meters belong to the registry
+    }
+
+    private void record(MetricCollection httpMetrics) {
+        setLatest(maxConcurrency, httpMetrics.metricValues(HttpMetric.MAX_CONCURRENCY));
+        setLatest(leasedConcurrency, httpMetrics.metricValues(HttpMetric.LEASED_CONCURRENCY));
+        setLatest(availableConcurrency, httpMetrics.metricValues(HttpMetric.AVAILABLE_CONCURRENCY));
+        setLatest(pendingAcquires, httpMetrics.metricValues(HttpMetric.PENDING_CONCURRENCY_ACQUIRES));
+        for (Duration duration : httpMetrics.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION)) {
+            acquireTimer.record(duration);
+        }
+    }
+
+    private static void setLatest(AtomicInteger gauge, List<Integer> values) {
+        if (!values.isEmpty()) {
+            gauge.set(values.get(values.size() - 1));
+        }
+    }
+}
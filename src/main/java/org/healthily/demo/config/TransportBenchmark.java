@@ -0,0 +1,112 @@
+package org.healthily.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the HTTP transports against the configured endpoint (DynamoDB Local when run with docker-compose).
+ * Runs only with the {@code transport-benchmark} profile, after the tables have been created and seeded:
+ * {@code ./gradlew bootRun --args='--spring.profiles.active=transport-benchmark'}
+ */
+@Component
+@Slf4j
+@Profile("transport-benchmark")
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TransportBenchmark implements CommandLineRunner {
+
+    private final DynamoDBClientFactory clientFactory;
+    private final DynamoDBProperties properties;
+
+    @Value("${dynamodb.table.health_data}")
+    private String healthDataTable;
+
+    @Override
+    public void run(String... args) throws Exception {
+        DynamoDBProperties.Benchmark benchmark = properties.getBenchmark();
+        log.info("Running transport benchmark: {} requests, {} warm-up, concurrency {}",
+                benchmark.getRequests(), benchmark.getWarmupRequests(), benchmark.getConcurrency());
+
+        for (DynamoDBProperties.Transport transport : DynamoDBProperties.Transport.values()) {
+            try (DynamoDbClient client = clientFactory.create(transport, List.of())) {
+                GetItemRequest request = GetItemRequest.builder()
+                        .tableName(healthDataTable)
+                        .key(Map.of("id", AttributeValue.builder().s(benchmark.getKey()).build()))
+                        .build();
+
+                execute(client, request, benchmark.getWarmupRequests(), benchmark.getConcurrency());
+
+                long start = System.nanoTime();
+                long[] latencies = execute(client, request, benchmark.getRequests(), benchmark.getConcurrency());
+                long elapsed = System.nanoTime() - start;
+
+                Arrays.sort(latencies);
+                log.info("{}: throughput={} req/s p50={}ms p90={}ms p99={}ms p99.9={}ms max={}ms",
+                        transport,
+                        String.format("%.0f", latencies.length / (elapsed / 1_000_000_000.0)),
+                        millis(percentile(latencies, 0.50)),
+                        millis(percentile(latencies, 0.90)),
+                        millis(percentile(latencies, 0.99)),
+                        millis(percentile(latencies, 0.999)),
+                        millis(latencies[latencies.length - 1]));
+            } catch (RuntimeException | ExecutionException e) {
+                log.error("Transport {} failed during benchmark: {}", transport, e.getMessage());
+            }
+        }
+    }
+
+    private long[] execute(DynamoDbClient client, GetItemRequest request, int requests, int concurrency)
+            throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    int index = next.getAndIncrement();
+                    while (index < requests) {
+                        long start = System.nanoTime();
+                        client.getItem(request);
+                        latencies[index] = System.nanoTime() - start;
+                        index = next.getAndIncrement();
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,24 @@
+package org.healthily.demo.config;
+
+import lombok.RequiredArgsConstructor;
+import org.healthily.demo.controller.AssessmentWebSocketHandler;
+import org.healthily.demo.security.JwtHandshakeInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final AssessmentWebSocketHandler assessmentWebSocketHandler;
+    private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(assessmentWebSocketHandler, "/assessment/ws")
+                .addInterceptors(jwtHandshakeInterceptor);
+    }
+}
@@ -4,10 +4,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.healthily.demo.model.dto.AnswerQuestionRequest;
+import org.healthily.demo.model.dto.AnswerQuestionsRequest;
+import org.healthily.demo.model.dto.AssessmentHistoryResponse;
 import org.healthily.demo.model.dto.AssessmentResponse;
 import org.healthily.demo.model.dto.AssessmentResultResponse;
 import org.healthily.demo.model.dto.StartAssessmentRequest;
 import org.healthily.demo.service.AssessmentService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
@@ -18,20 +23,26 @@ import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 @RequiredArgsConstructor
 public class AssessmentController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final CacheControl RESULT_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final AssessmentService assessmentService;
 
     @PostMapping("/start")
-    public ResponseEntity<AssessmentResponse> startAssessment(@Valid @RequestBody StartAssessmentRequest request) {
-        AssessmentResponse response = assessmentService.startAssessment(request);
+    public ResponseEntity<AssessmentResponse> startAssessment(
+            @Valid @RequestBody StartAssessmentRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        AssessmentResponse response = assessmentService.startAssessment(request, idempotencyKey);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/{assessment_id}/answer")
     public ResponseEntity<AssessmentResponse> answerQuestion(
             @PathVariable("assessment_id") String assessmentId,
-            @Valid @RequestBody AnswerQuestionRequest request) {
+            @Valid @RequestBody AnswerQuestionRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         try {
-            AssessmentResponse response = assessmentService.answerQuestion(assessmentId, request);
+            AssessmentResponse response = assessmentService.answerQuestion(assessmentId, request, idempotencyKey);
             return ResponseEntity.ok(response);
         } catch (ResourceNotFoundException e) {
             log.error("Resource not found ", e);
@@ -39,16 +50,59 @@ public class AssessmentController {
         }
     }
 
+    @PostMapping("/{assessment_id}/answers")
+    public ResponseEntity<AssessmentResponse> answerQuestions(
+            @PathVariable("assessment_id") String assessmentId,
+            @Valid @RequestBody AnswerQuestionsRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(assessmentService.answerQuestions(assessmentId, request, idempotencyKey));
+    }
+
     @GetMapping("/{assessment_id}/result")
     public ResponseEntity<AssessmentResultResponse> getAssessmentResult(
-            @PathVariable("assessment_id") String assessmentId) {
+            @PathVariable("assessment_id") String assessmentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            // Served from the result cache after the first read, so repeat polls never reach DynamoDB
             AssessmentResultResponse response = assessmentService.getAssessmentResult(assessmentId);
-            return ResponseEntity.ok(response);
+            if (etagMatches(ifNoneMatch, response.getEtag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(response.getEtag())
+                        .cacheControl(RESULT_CACHE_CONTROL)
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(response.getEtag())
+                    .cacheControl(RESULT_CACHE_CONTROL)
+                    .body(response);
         } catch (ResourceNotFoundException e) {
             log.error("Resource not found ", e);
             throw e;
         }
     }
 
+    @GetMapping("/history")
+    public ResponseEntity<AssessmentHistoryResponse> getAssessmentHistory(
+            @RequestParam("user_id") String userId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return ResponseEntity.ok(assessmentService.getAssessmentHistory(userId, limit, cursor));
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,208 @@
+package org.healthily.demo.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.exception.BackendUnavailableException;
+import org.healthily.demo.exception.BadRequestException;
+import org.healthily.demo.exception.TooManyRequestsException;
+import org.healthily.demo.exception.UnauthorizedException;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.dto.AnswerQuestionRequest;
+import org.healthily.demo.model.dto.AssessmentResultResponse;
+import org.healthily.demo.model.dto.SessionEvent;
+import org.healthily.demo.model.dto.SessionMessage;
+import org.healthily.demo.security.JwtHandshakeInterceptor;
+import org.healthily.demo.service.AssessmentService;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a whole assessment over one connection. The assessment lives in the session while questions are answered and
+ * is only written to DynamoDB once a diagnosis is reached or the connection closes. The session is closed when the
+ * token it was opened with expires.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AssessmentWebSocketHandler extends TextWebSocketHandler {
+
+    private static final String ASSESSMENT_ATTRIBUTE = "assessment";
+    // The assessment as last read or written, the session only checkpoints when it differs from the one held in memory
+    private static final String PERSISTED_ATTRIBUTE = "assessmentPersisted";
+    private static final String EXPIRY_ATTRIBUTE = "tokenExpiry";
+
+    private final AssessmentService assessmentService;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService expiryScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ws-token-expiry").daemon().factory());
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        Instant expiresAt = (Instant) session.getAttributes().get(JwtHandshakeInterceptor.EXPIRES_AT_ATTRIBUTE);
+        long delayMillis = Math.max(0, Duration.between(Instant.now(), expiresAt).toMillis());
+        session.getAttributes().put(EXPIRY_ATTRIBUTE,
+                expiryScheduler.schedule(() -> closeExpired(session), delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        Instant expiresAt = (Instant) session.getAttributes().get(JwtHandshakeInterceptor.EXPIRES_AT_ATTRIBUTE);
+        if (!Instant.now().isBefore(expiresAt)) {
+            closeExpired(session);
+            return;
+        }
+
+        SessionEvent event;
+        try {
+            SessionMessage request = objectMapper.readValue(message.getPayload(), SessionMessage.class);
+            event = switch (request.getType() == null ? "" : request.getType()) {
+                case "start" -> start(session, request);
+                case "resume" -> resume(session, request);
+                case "answer" -> answer(session, request);
+                default -> error("Unknown message type: " + request.getType());
+            };
+        } catch (JsonProcessingException e) {
+            event = error("Invalid message");
+        } catch (BadRequestException | BackendUnavailableException | TooManyRequestsException
+                 | UnauthorizedException | ResourceNotFoundException e) {
+            event = error(e.getMessage());
+        } catch (AccessDeniedException e) {
+            event = error("Access denied");
+        } catch (RuntimeException e) {
+            // Answered like the REST endpoints answer with a 500, the connection stays usable
+            log.error("Failed to handle assessment session message", e);
+            event = error("Internal server error");
+        }
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(event)));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        if (session.getAttributes().get(EXPIRY_ATTRIBUTE) instanceof ScheduledFuture<?> expiry) {
+            expiry.cancel(false);
+        }
+        try {
+            checkpointIfDirty(session);
+        } catch (RuntimeException e) {
+            log.error("Failed to checkpoint assessment on disconnect", e);
+        }
+    }
+
+    private SessionEvent start(WebSocketSession session, SessionMessage request) {
+        if (request.getInitialSymptoms() == null || request.getInitialSymptoms().isEmpty()) {
+            throw new BadRequestException("At least one initial symptom is required");
+        }
+        checkpointIfDirty(session);
+
+        AssessmentState assessment = assessmentService.newAssessment(userId(session), request.getInitialSymptoms());
+        return track(session, assessment, null);
+    }
+
+    private SessionEvent resume(WebSocketSession session, SessionMessage request) {
+        if (request.getAssessmentId() == null) {
+            throw new BadRequestException("Assessment ID is required");
+        }
+        checkpointIfDirty(session);
+
+        AssessmentState assessment = assessmentService.loadAssessment(request.getAssessmentId(), userId(session));
+        return track(session, assessment, assessment);
+    }
+
+    private SessionEvent answer(WebSocketSession session, SessionMessage request) {
+        AssessmentState assessment = (AssessmentState) session.getAttributes().get(ASSESSMENT_ATTRIBUTE);
+        if (assessment == null) {
+            throw new BadRequestException("No assessment in progress, send start or resume first");
+        }
+        if (request.getQuestionId() == null || request.getResponse() == null) {
+            throw new BadRequestException("Question ID and response are required");
+        }
+
+        AnswerQuestionRequest answer = new AnswerQuestionRequest(request.getQuestionId(), request.getResponse());
+        return track(session, assessmentService.advance(assessment, List.of(answer)),
+                (AssessmentState) session.getAttributes().get(PERSISTED_ATTRIBUTE));
+    }
+
+    private SessionEvent track(WebSocketSession session, AssessmentState assessment, AssessmentState persisted) {
+        session.getAttributes().put(ASSESSMENT_ATTRIBUTE, assessment);
+        if (persisted == null) {
+            session.getAttributes().remove(PERSISTED_ATTRIBUTE);
+        } else {
+            session.getAttributes().put(PERSISTED_ATTRIBUTE, persisted);
+        }
+
+        if (!assessment.isCompleted()) {
+            return SessionEvent.builder()
+                    .type("question")
+                    .assessmentId(assessment.getId())
+                    .questionId(assessment.getNextQuestionId())
+                    .build();
+        }
+
+        checkpointIfDirty(session);
+        AssessmentResultResponse result = assessmentService.buildResult(assessment.getId(), assessment);
+        return SessionEvent.builder()
+                .type("diagnosis")
+                .assessmentId(assessment.getId())
+                .condition(result.getCondition())
+                .probabilities(result.getProbabilities())
+                .build();
+    }
+
+    private void checkpointIfDirty(WebSocketSession session) {
+        AssessmentState assessment = (AssessmentState) session.getAttributes().get(ASSESSMENT_ATTRIBUTE);
+        AssessmentState persisted = (AssessmentState) session.getAttributes().get(PERSISTED_ATTRIBUTE);
+        if (assessment == null || assessment == persisted) {
+            return;
+        }
+        try {
+            assessmentService.checkpoint(assessment, persisted);
+        } catch (BadRequestException e) {
+            // Lost to a concurrent answer, the client has to resume from the stored state
+            session.getAttributes().remove(ASSESSMENT_ATTRIBUTE);
+            session.getAttributes().remove(PERSISTED_ATTRIBUTE);
+            throw e;
+        }
+        session.getAttributes().put(PERSISTED_ATTRIBUTE, assessment);
+    }
+
+    // Checkpoints through afterConnectionClosed like any other disconnect
+    private void closeExpired(WebSocketSession session) {
+        try {
+            if (session.isOpen()) {
+                session.close(CloseStatus.POLICY_VIOLATION.withReason("Token expired"));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close expired assessment session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        expiryScheduler.shutdownNow();
+    }
+
+    private static String userId(WebSocketSession session) {
+        return (String) session.getAttributes().get(JwtHandshakeInterceptor.USER_ID_ATTRIBUTE);
+    }
+
+    private static SessionEvent error(String message) {
+        return SessionEvent.builder().type("error").message(message).build();
+    }
+}
@@ -1,13 +1,16 @@
 package org.healthily.demo.controller;
 
+import io.jsonwebtoken.Claims;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.healthily.demo.model.dto.LoginRequest;
 import org.healthily.demo.model.dto.LoginResponse;
+import org.healthily.demo.model.dto.RefreshRequest;
 import org.healthily.demo.model.dto.RegisterRequest;
 import org.healthily.demo.model.dto.RegisterResponse;
 import org.healthily.demo.service.AuthService;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -28,4 +31,28 @@ public class AuthController {
     public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request) {
         return ResponseEntity.ok(authService.login(request));
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    /**
+     * Revokes the access token of the request and, when given, the refresh token issued with it.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(Authentication authentication,
+                                       @RequestBody(required = false) RefreshRequest request) {
+        authService.logout((Claims) authentication.getDetails(), request == null ? null : request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Revokes every access and refresh token of the user issued so far.
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(Authentication authentication) {
+        authService.logoutAll(authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,25 @@
+package org.healthily.demo.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when DynamoDB is failing or the circuit breaker is open. Clients should retry after {@code retryAfterSeconds}.
+ */
+@Getter
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class BackendUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public BackendUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public BackendUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
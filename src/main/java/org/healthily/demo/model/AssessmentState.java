@@ -0,0 +1,35 @@
+package org.healthily.demo.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of an assessment. Collections are unmodifiable, every step of the engine produces a new state.
+ * Mapped to and from DynamoDB items by the assessment repositories only.
+ */
+@Value
+@Builder(toBuilder = true)
+public class AssessmentState {
+    String id;
+    String userId;
+    // Epoch millis, 0 for assessments created before it was recorded
+    long createdAt;
+    @Builder.Default
+    List<String> initialSymptoms = List.of();
+    AssessmentStatus status;
+    @Builder.Default
+    Map<String, BigDecimal> probabilities = Map.of();
+    @Builder.Default
+    Map<String, ResponseType> askedQuestions = Map.of();
+    String nextQuestionId;
+    String diagnosis;
+    String lastIdempotencyKey;
+
+    public boolean isCompleted() {
+        return status == AssessmentStatus.COMPLETED;
+    }
+}
@@ -0,0 +1,23 @@
+package org.healthily.demo.model;
+
+public enum AssessmentStatus {
+    ONGOING("ongoing"),
+    COMPLETED("completed");
+
+    private final String value;
+
+    AssessmentStatus(String value) {
+        this.value = value;
+    }
+
+    /**
+     * The value stored in DynamoDB and returned by the API.
+     */
+    public String value() {
+        return value;
+    }
+
+    public static AssessmentStatus fromValue(String value) {
+        return COMPLETED.value.equals(value) ? COMPLETED : ONGOING;
+    }
+}
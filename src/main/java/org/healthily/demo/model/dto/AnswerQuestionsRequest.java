@@ -0,0 +1,19 @@
+package org.healthily.demo.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerQuestionsRequest {
+    @NotEmpty(message = "At least one answer is required")
+    @Size(max = 50, message = "At most 50 answers can be submitted at once")
+    private List<@Valid AnswerQuestionRequest> answers;
+}
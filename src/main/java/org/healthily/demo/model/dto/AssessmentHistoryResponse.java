@@ -0,0 +1,19 @@
+package org.healthily.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class AssessmentHistoryResponse {
+    private List<AssessmentSummary> assessments;
+
+    // Absent on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
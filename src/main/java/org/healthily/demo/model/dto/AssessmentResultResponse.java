@@ -14,4 +14,8 @@ public class AssessmentResultResponse {
 
     @JsonIgnore
     private String userId;
+
+    // Completed results never change, so the tag is computed once when the result is built
+    @JsonIgnore
+    private String etag;
 } 
\ No newline at end of file
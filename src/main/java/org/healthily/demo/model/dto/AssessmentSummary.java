@@ -0,0 +1,21 @@
+package org.healthily.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+public class AssessmentSummary {
+    @JsonProperty("assessment_id")
+    private String assessmentId;
+    private String status;
+    private String diagnosis;
+    @JsonProperty("initial_symptoms")
+    private List<String> initialSymptoms;
+    @JsonProperty("created_at")
+    private Instant createdAt;
+}
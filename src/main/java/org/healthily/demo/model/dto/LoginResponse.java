@@ -11,4 +11,6 @@ public class LoginResponse {
     private String userId;
     @JsonProperty("access_token")
     private String accessToken;
+    @JsonProperty("refresh_token")
+    private String refreshToken;
 } 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package org.healthily.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshRequest {
+    @NotBlank(message = "Refresh token is required")
+    @JsonProperty("refresh_token")
+    private String refreshToken;
+}
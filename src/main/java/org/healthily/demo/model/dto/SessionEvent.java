@@ -0,0 +1,28 @@
+package org.healthily.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Server event on the assessment WebSocket: {@code question}, {@code diagnosis} or {@code error}.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SessionEvent {
+    private String type;
+
+    @JsonProperty("assessment_id")
+    private String assessmentId;
+
+    @JsonProperty("question_id")
+    private String questionId;
+
+    private String condition;
+    private Map<String, String> probabilities;
+    private String message;
+}
@@ -0,0 +1,30 @@
+package org.healthily.demo.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.healthily.demo.model.ResponseType;
+
+import java.util.List;
+
+/**
+ * Client message on the assessment WebSocket: {@code start}, {@code resume} or {@code answer}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionMessage {
+    private String type;
+
+    @JsonProperty("initial_symptoms")
+    private List<String> initialSymptoms;
+
+    @JsonProperty("assessment_id")
+    private String assessmentId;
+
+    @JsonProperty("question_id")
+    private String questionId;
+
+    private ResponseType response;
+}
@@ -0,0 +1,39 @@
+package org.healthily.demo.repository;
+
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.AssessmentStatus;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Cold tier for completed assessments. Entries are compacted to the diagnosis and the top-K probabilities and outlive
+ * the hot assessments.
+ */
+public interface AssessmentArchiveRepository {
+
+    void archive(AssessmentState assessment);
+
+    /**
+     * Same attributes as {@link AssessmentRepository#getAssessmentResult}.
+     */
+    AssessmentState getArchivedResult(String assessmentId);
+
+    /**
+     * The archived form of a completed assessment.
+     */
+    static AssessmentState compact(AssessmentState assessment, int topK) {
+        return AssessmentState.builder()
+                .id(assessment.getId())
+                .userId(assessment.getUserId())
+                .createdAt(assessment.getCreatedAt())
+                .status(AssessmentStatus.COMPLETED)
+                .diagnosis(assessment.getDiagnosis())
+                .probabilities(assessment.getProbabilities().entrySet().stream()
+                        .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+                        .limit(topK)
+                        .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue)))
+                .build();
+    }
+}
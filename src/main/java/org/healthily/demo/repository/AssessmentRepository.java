@@ -1,50 +1,59 @@
 package org.healthily.demo.repository;
 
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Repository;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import org.healthily.demo.model.AssessmentState;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 
+import java.util.List;
 import java.util.Map;
 
-@Repository
-@Slf4j
-@RequiredArgsConstructor
-public class AssessmentRepository {
-
-    private final DynamoDbClient dynamoDB;
-
-    @Value("${dynamodb.table.assessments}")
-    private String tableName;
-
-    public Map<String, AttributeValue> getAssessment(String assessmentId) {
-        GetItemRequest request = GetItemRequest.builder()
-                .tableName(tableName)
-                .key(Map.of("id", AttributeValue.builder()
-                        .s(assessmentId).build()))
-                .build();
-
-        return dynamoDB.getItem(request).item();
-    }
-
-    public void saveAssessment(String assessmentId, Map<String, AttributeValue> item) {
-        item.put("id", AttributeValue.builder()
-                .s(assessmentId)
-                .build());
-        dynamoDB.putItem(PutItemRequest.builder()
-                .tableName(tableName)
-                .item(item)
-                .build());
-    }
-
-    public void updateAssessment(Map<String, AttributeValue> item) {
-        dynamoDB.putItem(PutItemRequest.builder()
-                .tableName(tableName)
-                .item(item)
-                .build());
+/**
+ * Hot storage of assessments. Conditional writes report the competing state instead of throwing, so the service can
+ * reconcile concurrent answers.
+ */
+public interface AssessmentRepository {
+
+    /**
+     * @return {@code null} when the assessment does not exist
+     */
+    AssessmentState getAssessment(String assessmentId);
+
+    /**
+     * Reads only the attributes needed to build an assessment result: user id, status, diagnosis and probabilities.
+     */
+    AssessmentState getAssessmentResult(String assessmentId);
+
+    void saveAssessment(AssessmentState assessment);
+
+    /**
+     * Puts a new assessment unless one with the same id already exists.
+     *
+     * @return the existing assessment when the id was taken, {@code null} when the item was written
+     */
+    AssessmentState createAssessment(AssessmentState assessment);
+
+    /**
+     * Writes the assessment only if it still expects {@code expectedQuestionId}, so concurrent answers cannot
+     * overwrite each other.
+     *
+     * @return the current assessment when another write got there first, {@code null} when the item was written
+     */
+    AssessmentState updateAssessment(AssessmentState assessment, String expectedQuestionId);
+
+    /**
+     * Starts the hot retention of a completed assessment once its archive copy is written. Completed assessments are
+     * stored without expiry, so one whose archive write failed stays in the hot table instead of expiring unarchived.
+     */
+    void expireAfterArchive(String assessmentId);
+
+    /**
+     * Newest first page of a user's assessments, summary attributes only. The start key has the
+     * {@code user_id}, {@code created_at} and {@code id} attributes of the last item of the previous page.
+     */
+    HistoryPage findByUserId(String userId, int limit, Map<String, AttributeValue> exclusiveStartKey);
+
+    /**
+     * Summary states carry id, status, diagnosis, initial symptoms and creation time only.
+     */
+    record HistoryPage(List<AssessmentState> items, Map<String, AttributeValue> lastEvaluatedKey) {
     }
-} 
\ No newline at end of file
+}
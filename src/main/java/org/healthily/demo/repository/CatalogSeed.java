@@ -0,0 +1,95 @@
+package org.healthily.demo.repository;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The demo condition and symptom catalog, loaded into DynamoDB on startup and served as-is by the in-memory backend.
+ * Items are keyed {@code CONDITION#<name>} or {@code SYMPTOM#<name>}. Conditions carry a numeric {@code prevalence},
+ * symptoms a {@code conditions} map from condition name to the probability of the symptom given the condition.
+ */
+public final class CatalogSeed {
+
+    public static final List<Condition> CONDITIONS = List.of(
+            new Condition("Common Cold", "0.5"),
+            new Condition("Hayfever", "0.3"),
+            new Condition("COVID-19", "0.2"));
+
+    public static final List<Symptom> SYMPTOMS = List.of(
+            new Symptom("Sneezing", Map.of("Hayfever", "0.9", "COVID-19", "0.1", "Common Cold", "0.7")),
+            new Symptom("Runny nose", Map.of("Hayfever", "0.85", "COVID-19", "0.2", "Common Cold", "0.8")),
+            new Symptom("Nasal congestion", Map.of("Hayfever", "0.75", "COVID-19", "0.4", "Common Cold", "0.85")),
+            new Symptom("Cough", Map.of("Hayfever", "0.1", "COVID-19", "0.7", "Common Cold", "0.6")),
+            new Symptom("Fever", Map.of("Hayfever", "0.0", "COVID-19", "0.85", "Common Cold", "0.1")),
+            new Symptom("Sore throat", Map.of("Hayfever", "0.05", "COVID-19", "0.65", "Common Cold", "0.75")),
+            new Symptom("Loss of smell or taste", Map.of("Hayfever", "0.05", "COVID-19", "0.8", "Common Cold", "0.05")),
+            new Symptom("Headache", Map.of("Hayfever", "0.3", "COVID-19", "0.6", "Common Cold", "0.4")),
+            new Symptom("Fatigue", Map.of("Hayfever", "0.2", "COVID-19", "0.75", "Common Cold", "0.3")),
+            new Symptom("Watery or itchy eyes", Map.of("Hayfever", "0.95", "COVID-19", "0.05", "Common Cold", "0.1")),
+            new Symptom("Shortness of breath", Map.of("Hayfever", "0.05", "COVID-19", "0.5", "Common Cold", "0.05")));
+
+    private CatalogSeed() {
+    }
+
+    /**
+     * SHA-256 of the catalog in a canonical order, so it only changes when the catalog does.
+     */
+    public static String checksum() {
+        StringBuilder canonical = new StringBuilder();
+        CONDITIONS.stream()
+                .sorted(Comparator.comparing(Condition::name))
+                .forEach(condition -> canonical.append("C|").append(condition.name())
+                        .append('|').append(condition.prevalence()).append('\n'));
+        SYMPTOMS.stream()
+                .sorted(Comparator.comparing(Symptom::name))
+                .forEach(symptom -> {
+                    canonical.append("S|").append(symptom.name());
+                    new TreeMap<>(symptom.conditions()).forEach((condition, probability) ->
+                            canonical.append('|').append(condition).append('=').append(probability));
+                    canonical.append('\n');
+                });
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record Condition(String name, String prevalence) {
+
+        public Map<String, AttributeValue> toItem() {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("id", AttributeValue.builder().s("CONDITION#" + name).build());
+            item.put("entityType", AttributeValue.builder().s("CONDITION").build());
+            item.put("prevalence", AttributeValue.builder().n(prevalence).build());
+            return item;
+        }
+    }
+
+    public record Symptom(String name, Map<String, String> conditions) {
+
+        public Map<String, AttributeValue> toItem() {
+            Map<String, AttributeValue> conditionsAttributeMap = new HashMap<>();
+            for (Map.Entry<String, String> entry : conditions.entrySet()) {
+                conditionsAttributeMap.put(entry.getKey(), AttributeValue.builder().n(entry.getValue()).build());
+            }
+
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("id", AttributeValue.builder().s("SYMPTOM#" + name).build());
+            item.put("entityType", AttributeValue.builder().s("SYMPTOM").build());
+            item.put("conditions", AttributeValue.builder().m(conditionsAttributeMap).build());
+            return item;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package org.healthily.demo.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.Capacity;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Attributes the capacity DynamoDB reports for each call to the HTTP endpoint being served and the repository
+ * operation that made the call. Calls made outside a request, such as scheduled jobs and WebSocket sessions, are
+ * attributed to {@code background}. Every call is recorded by
+ * {@link org.healthily.demo.config.ConsumedCapacityInterceptor}, including failed conditional writes and the losing
+ * attempt of a hedged read.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConsumedCapacityRecorder {
+
+    /**
+     * Request attribute holding the capacity consumed so far by the request, by operation.
+     */
+    public static final String REQUEST_ATTRIBUTE = ConsumedCapacityRecorder.class.getName() + ".usage";
+
+    private static final String BACKGROUND = "background";
+    private static final String BASE_TABLE = "table";
+
+    private static final ThreadLocal<Attribution> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final Map<Consumer, Usage> usage = new ConcurrentHashMap<>();
+
+    /**
+     * Wraps a repository call so the DynamoDB requests it makes are attributed to {@code operation} and to the HTTP
+     * request being served now, even when the call runs on another thread as hedged reads do.
+     */
+    public <T> Supplier<T> attributed(String operation, Supplier<T> call) {
+        Attribution attribution = attribution(operation);
+        return () -> {
+            Attribution previous = CURRENT.get();
+            CURRENT.set(attribution);
+            try {
+                return call.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param operation used when the call was not made through {@link #attributed}
+     */
+    public void record(String operation, Object response) {
+        add(operation, consumedCapacity(response));
+    }
+
+    /**
+     * DynamoDB bills a conditional write whose condition fails, and a cancelled write transaction, but the error
+     * carries no consumed capacity. The least they can cost is counted instead: one write unit per item, two for
+     * transactional items.
+     */
+    public void recordFailure(String operation, Object request, Throwable failure) {
+        add(operation, failedWriteCapacity(request, failure));
+    }
+
+    private void add(String operation, List<ConsumedCapacity> consumed) {
+        if (consumed.isEmpty()) {
+            return;
+        }
+
+        Attribution current = CURRENT.get();
+        Attribution attribution = current == null ? attribution(operation) : current;
+        String endpoint = attribution.endpoint();
+        double total = 0;
+        for (ConsumedCapacity capacity : consumed) {
+            double units = capacity.capacityUnits() == null ? 0 : capacity.capacityUnits();
+            total += units;
+            usage.computeIfAbsent(new Consumer(endpoint, attribution.operation(), capacity.tableName()),
+                    key -> new Usage()).add(units);
+
+            Capacity table = capacity.table();
+            count(attribution, capacity.tableName(), BASE_TABLE,
+                    table == null ? Double.valueOf(units) : table.capacityUnits());
+            if (capacity.hasGlobalSecondaryIndexes()) {
+                capacity.globalSecondaryIndexes().forEach((index, indexCapacity) ->
+                        count(attribution, capacity.tableName(), index, indexCapacity.capacityUnits()));
+            }
+            if (capacity.hasLocalSecondaryIndexes()) {
+                capacity.localSecondaryIndexes().forEach((index, indexCapacity) ->
+                        count(attribution, capacity.tableName(), index, indexCapacity.capacityUnits()));
+            }
+        }
+
+        if (attribution.requestUsage() != null) {
+            attribution.requestUsage().merge(attribution.operation(), total, Double::sum);
+        }
+    }
+
+    /**
+     * @return the endpoint and operation pairs that consumed the most capacity since startup
+     */
+    public List<ConsumerUsage> topConsumers(int limit) {
+        return usage.entrySet().stream()
+                .map(entry -> new ConsumerUsage(entry.getKey().endpoint(), entry.getKey().operation(),
+                        entry.getKey().table(), entry.getValue().units.sum(), entry.getValue().calls.sum()))
+                .sorted(Comparator.comparingDouble(ConsumerUsage::capacityUnits).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    private void count(Attribution attribution, String table, String index, Double units) {
+        if (units == null || units == 0) {
+            return;
+        }
+        registry.counter("dynamodb.consumed.capacity", "endpoint", attribution.endpoint(),
+                        "operation", attribution.operation(), "table", table, "index", index)
+                .increment(units);
+    }
+
+    // Resolved on the request thread: a hedged attempt may finish after the request, once the container has
+    // recycled it, so only the usage map is kept
+    private static Attribution attribution(String operation) {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return new Attribution(BACKGROUND, operation, null);
+        }
+        return new Attribution(endpoint(request), operation, requestUsage(request));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Double> requestUsage(HttpServletRequest request) {
+        Object current = request.getAttribute(REQUEST_ATTRIBUTE);
+        if (current instanceof Map<?, ?> map) {
+            return (Map<String, Double>) map;
+        }
+        Map<String, Double> created = new ConcurrentHashMap<>();
+        request.setAttribute(REQUEST_ATTRIBUTE, created);
+        return created;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest();
+        }
+        return null;
+    }
+
+    // The route template rather than the raw path, so assessment ids do not end up as metric tags
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern == null ? "unmapped" : pattern);
+    }
+
+    private static List<ConsumedCapacity> consumedCapacity(Object response) {
+        if (response == null) {
+            return List.of();
+        }
+        return switch (response) {
+            case GetItemResponse r -> single(r.consumedCapacity());
+            case PutItemResponse r -> single(r.consumedCapacity());
+            case UpdateItemResponse r -> single(r.consumedCapacity());
+            case DeleteItemResponse r -> single(r.consumedCapacity());
+            case QueryResponse r -> single(r.consumedCapacity());
+            case ScanResponse r -> single(r.consumedCapacity());
+            case BatchGetItemResponse r -> r.consumedCapacity();
+            case BatchWriteItemResponse r -> r.consumedCapacity();
+            case TransactGetItemsResponse r -> r.consumedCapacity();
+            case TransactWriteItemsResponse r -> r.consumedCapacity();
+            default -> List.of();
+        };
+    }
+
+    private static List<ConsumedCapacity> single(ConsumedCapacity capacity) {
+        return capacity == null ? List.of() : List.of(capacity);
+    }
+
+    private static List<ConsumedCapacity> failedWriteCapacity(Object request, Throwable failure) {
+        if (failure instanceof ConditionalCheckFailedException) {
+            String table = switch (request) {
+                case PutItemRequest r -> r.tableName();
+                case UpdateItemRequest r -> r.tableName();
+                case DeleteItemRequest r -> r.tableName();
+                default -> null;
+            };
+            return table == null ? List.of() : List.of(writeUnits(table, 1));
+        }
+        if (failure instanceof TransactionCanceledException && request instanceof TransactWriteItemsRequest r) {
+            Map<String, Double> byTable = new LinkedHashMap<>();
+            r.transactItems().forEach(item -> byTable.merge(tableName(item), 2.0, Double::sum));
+            return byTable.entrySet().stream()
+                    .map(entry -> writeUnits(entry.getKey(), entry.getValue()))
+                    .toList();
+        }
+        return List.of();
+    }
+
+    private static String tableName(TransactWriteItem item) {
+        if (item.put() != null) {
+            return item.put().tableName();
+        }
+        if (item.update() != null) {
+            return item.update().tableName();
+        }
+        if (item.delete() != null) {
+            return item.delete().tableName();
+        }
+        return item.conditionCheck().tableName();
+    }
+
+    private static ConsumedCapacity writeUnits(String table, double units) {
+        return ConsumedCapacity.builder().tableName(table).capacityUnits(units).writeCapacityUnits(units).build();
+    }
+
+    private record Attribution(String endpoint, String operation, Map<String, Double> requestUsage) {
+    }
+
+    private record Consumer(String endpoint, String operation, String table) {
+    }
+
+    private static final class Usage {
+        private final DoubleAdder units = new DoubleAdder();
+        private final LongAdder calls = new LongAdder();
+
+        private void add(double capacityUnits) {
+            units.add(capacityUnits);
+            calls.increment();
+        }
+    }
+
+    public record ConsumerUsage(String endpoint, String operation, String table, double capacityUnits, long calls) {
+    }
+}
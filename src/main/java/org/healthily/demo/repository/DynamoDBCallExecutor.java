@@ -0,0 +1,157 @@
+package org.healthily.demo.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.exception.BackendUnavailableException;
+import org.healthily.demo.resilience.CircuitBreaker;
+import org.healthily.demo.resilience.CircuitBreakerProperties;
+import org.healthily.demo.resilience.HedgedReadExecutor;
+import org.healthily.demo.tracing.RequestTracer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single entry point for repository calls to DynamoDB. Every call goes through a bulkhead that bounds the number of
+ * request threads waiting on DynamoDB and a circuit breaker that fails fast with {@link BackendUnavailableException}
+ * once DynamoDB is erroring or slow. Client errors (validation, conditional checks) are passed through untouched.
+ */
+@Slf4j
+@Component
+public class DynamoDBCallExecutor {
+
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry registry;
+    private final ConsumedCapacityRecorder consumedCapacityRecorder;
+    private final HedgedReadExecutor hedgedReadExecutor;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final Counter openRejections;
+    private final Counter bulkheadRejections;
+    private final Counter backendFailures;
+
+    public DynamoDBCallExecutor(CircuitBreakerProperties properties,
+                                HedgedReadExecutor hedgedReadExecutor,
+                                ConsumedCapacityRecorder consumedCapacityRecorder,
+                                MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        this.consumedCapacityRecorder = consumedCapacityRecorder;
+        this.hedgedReadExecutor = hedgedReadExecutor;
+        this.circuitBreaker = new CircuitBreaker(properties, System::nanoTime);
+        this.bulkhead = new Semaphore(properties.getMaxConcurrentCalls());
+        this.openRejections = registry.counter("dynamodb.circuit.rejected", "reason", "open");
+        this.bulkheadRejections = registry.counter("dynamodb.circuit.rejected", "reason", "bulkhead");
+        this.backendFailures = registry.counter("dynamodb.circuit.failures");
+        Gauge.builder("dynamodb.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 closed, 1 open, 2 half open")
+                .register(registry);
+        Gauge.builder("dynamodb.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(registry);
+    }
+
+    /**
+     * Idempotent single item reads, hedged when hedging is enabled.
+     */
+    public <T> T read(String operation, Supplier<T> call) {
+        return guarded(operation,
+                () -> hedgedReadExecutor.read(operation, consumedCapacityRecorder.attributed(operation, call)));
+    }
+
+    public <T> T execute(String operation, Supplier<T> call) {
+        return guarded(operation, consumedCapacityRecorder.attributed(operation, call));
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> T guarded(String operation, Supplier<T> call) {
+        if (!properties.isEnabled()) {
+            long start = System.nanoTime();
+            try {
+                T result = call.get();
+                recordLatency(operation, "success", System.nanoTime() - start);
+                return result;
+            } catch (RuntimeException e) {
+                recordLatency(operation, isBackendFailure(e) ? "backend_error" : "client_error",
+                        System.nanoTime() - start);
+                throw e;
+            }
+        }
+
+        acquireBulkhead(operation);
+        try {
+            CircuitBreaker.Permit permit = circuitBreaker.tryAcquirePermission();
+            if (permit == null) {
+                openRejections.increment();
+                throw new BackendUnavailableException("DynamoDB is unavailable, %s rejected".formatted(operation),
+                        retryAfterSeconds());
+            }
+
+            long start = System.nanoTime();
+            try {
+                T result = call.get();
+                long elapsed = System.nanoTime() - start;
+                circuitBreaker.onSuccess(permit, elapsed);
+                recordLatency(operation, "success", elapsed);
+                return result;
+            } catch (RuntimeException e) {
+                long elapsed = System.nanoTime() - start;
+                if (!isBackendFailure(e)) {
+                    circuitBreaker.onSuccess(permit, elapsed);
+                    recordLatency(operation, "client_error", elapsed);
+                    throw e;
+                }
+                circuitBreaker.onError(permit, elapsed);
+                recordLatency(operation, "backend_error", elapsed);
+                backendFailures.increment();
+                log.warn("DynamoDB call {} failed: {}", operation, e.getMessage());
+                throw new BackendUnavailableException("DynamoDB call %s failed".formatted(operation),
+                        retryAfterSeconds(), e);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void acquireBulkhead(String operation) {
+        try {
+            if (bulkhead.tryAcquire(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bulkheadRejections.increment();
+        throw new BackendUnavailableException("Too many concurrent DynamoDB calls, %s rejected".formatted(operation), 1);
+    }
+
+    // Time spent in DynamoDB per repository operation, including SDK retries and hedges but not bulkhead waits
+    private void recordLatency(String operation, String outcome, long nanos) {
+        registry.timer("dynamodb.operation", "operation", operation, "outcome", outcome)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        RequestTracer.record(RequestTracer.DYNAMODB_PREFIX + operation, System.nanoTime() - nanos, nanos);
+    }
+
+    private long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(circuitBreaker.remainingOpenNanos()));
+    }
+
+    private static boolean isBackendFailure(RuntimeException e) {
+        if (e instanceof SdkClientException) {
+            // Timeouts, connection failures and exhausted pools
+            return true;
+        }
+        if (e instanceof AwsServiceException serviceException) {
+            return serviceException.isThrottlingException() || serviceException.statusCode() >= 500;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,34 @@
+package org.healthily.demo.repository;
+
+import java.time.Instant;
+
+/**
+ * Refresh tokens are stored by the hash of the token, never the token itself.
+ */
+public interface RefreshTokenRepository {
+
+    void save(String tokenHash, String userId, String role, Instant issuedAt, Instant expiresAt);
+
+    /**
+     * Atomically marks the token as used, links it to its successor and stores the successor with the same owner and
+     * role, if the token is unused, unrevoked and unexpired. A token can only ever be rotated once, and a rotated
+     * token always has a stored successor.
+     */
+    Rotation rotate(String tokenHash, String successorHash, Instant now, Instant successorExpiresAt);
+
+    /**
+     * @return the token that replaced the revoked one, if any
+     */
+    String revoke(String tokenHash, Instant now);
+
+    record RefreshToken(String userId, String role, Instant issuedAt, String replacedBy,
+                        boolean used, boolean revoked) {
+    }
+
+    /**
+     * @param token   the stored token, {@code null} when it does not exist
+     * @param rotated whether this call rotated it
+     */
+    record Rotation(RefreshToken token, boolean rotated) {
+    }
+}
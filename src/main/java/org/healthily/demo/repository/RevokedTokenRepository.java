@@ -0,0 +1,29 @@
+package org.healthily.demo.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Revocations ordered by revocation time, so every node can fetch what changed since its last refresh.
+ */
+public interface RevokedTokenRepository {
+
+    void revokeToken(String tokenId, String userId, Instant revokedAt, Instant expiresAt);
+
+    /**
+     * Revokes every token of the user issued up to {@code revokedAt}.
+     */
+    void revokeUser(String userId, Instant revokedAt, Instant expiresAt);
+
+    /**
+     * @return the unexpired revocations made after {@code since}, oldest first
+     */
+    List<Revocation> findRevokedSince(Instant since, Instant now);
+
+    /**
+     * @param tokenId the revoked token id, {@code null} when every token of the user issued up to
+     *                {@code revokedAt} is revoked
+     */
+    record Revocation(String tokenId, String userId, Instant revokedAt, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,124 @@
+package org.healthily.demo.repository.dynamodb;
+
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.AssessmentStatus;
+import org.healthily.demo.model.ResponseType;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The only place that knows the attribute layout of assessment items. Decoding tolerates projected items, missing
+ * attributes are left at their defaults.
+ */
+final class AssessmentItemCodec {
+
+    static final String ID = "id";
+    static final String USER_ID = "user_id";
+    static final String CREATED_AT = "created_at";
+    static final String INITIAL_SYMPTOMS = "initial_symptoms";
+    static final String STATUS = "status";
+    static final String PROBABILITIES = "probabilities";
+    static final String ASKED_QUESTIONS = "asked_questions";
+    static final String NEXT_QUESTION_ID = "next_question_id";
+    static final String DIAGNOSIS = "diagnosis";
+    static final String LAST_IDEMPOTENCY_KEY = "last_idempotency_key";
+
+    // Attribute values are immutable, the fixed ones are shared instead of built per item
+    private static final Map<AssessmentStatus, AttributeValue> STATUS_VALUES = Map.of(
+            AssessmentStatus.ONGOING, string(AssessmentStatus.ONGOING.value()),
+            AssessmentStatus.COMPLETED, string(AssessmentStatus.COMPLETED.value()));
+    private static final Map<ResponseType, AttributeValue> RESPONSE_VALUES = Map.of(
+            ResponseType.YES, string("yes"),
+            ResponseType.NO, string("no"));
+
+    private AssessmentItemCodec() {
+    }
+
+    static Map<String, AttributeValue> encode(AssessmentState state) {
+        Map<String, AttributeValue> item = new HashMap<>(16);
+        item.put(ID, string(state.getId()));
+        item.put(USER_ID, string(state.getUserId()));
+        item.put(STATUS, STATUS_VALUES.get(state.getStatus()));
+
+        Map<String, AttributeValue> probabilities = new HashMap<>(state.getProbabilities().size() * 2);
+        state.getProbabilities().forEach((condition, probability) ->
+                probabilities.put(condition, AttributeValue.builder().n(probability.toPlainString()).build()));
+        item.put(PROBABILITIES, AttributeValue.builder().m(probabilities).build());
+
+        if (state.getCreatedAt() > 0) {
+            item.put(CREATED_AT, AttributeValue.builder().n(Long.toString(state.getCreatedAt())).build());
+        }
+        // DynamoDB rejects empty sets
+        if (!state.getInitialSymptoms().isEmpty()) {
+            item.put(INITIAL_SYMPTOMS, AttributeValue.builder().ss(state.getInitialSymptoms()).build());
+        }
+        if (!state.getAskedQuestions().isEmpty()) {
+            Map<String, AttributeValue> askedQuestions = new HashMap<>(state.getAskedQuestions().size() * 2);
+            state.getAskedQuestions().forEach((question, response) ->
+                    askedQuestions.put(question, RESPONSE_VALUES.get(response)));
+            item.put(ASKED_QUESTIONS, AttributeValue.builder().m(askedQuestions).build());
+        }
+        putIfPresent(item, NEXT_QUESTION_ID, state.getNextQuestionId());
+        putIfPresent(item, DIAGNOSIS, state.getDiagnosis());
+        putIfPresent(item, LAST_IDEMPOTENCY_KEY, state.getLastIdempotencyKey());
+        return item;
+    }
+
+    /**
+     * @return {@code null} for a missing item
+     */
+    static AssessmentState decode(Map<String, AttributeValue> item) {
+        if (item == null || item.isEmpty()) {
+            return null;
+        }
+
+        AssessmentState.AssessmentStateBuilder state = AssessmentState.builder()
+                .id(stringOrNull(item, ID))
+                .userId(stringOrNull(item, USER_ID))
+                .status(AssessmentStatus.fromValue(stringOrNull(item, STATUS)))
+                .nextQuestionId(stringOrNull(item, NEXT_QUESTION_ID))
+                .diagnosis(stringOrNull(item, DIAGNOSIS))
+                .lastIdempotencyKey(stringOrNull(item, LAST_IDEMPOTENCY_KEY));
+
+        AttributeValue createdAt = item.get(CREATED_AT);
+        if (createdAt != null) {
+            state.createdAt(Long.parseLong(createdAt.n()));
+        }
+        AttributeValue initialSymptoms = item.get(INITIAL_SYMPTOMS);
+        if (initialSymptoms != null) {
+            state.initialSymptoms(List.copyOf(initialSymptoms.ss()));
+        }
+        AttributeValue probabilities = item.get(PROBABILITIES);
+        if (probabilities != null) {
+            Map<String, BigDecimal> decoded = new HashMap<>(probabilities.m().size() * 2);
+            probabilities.m().forEach((condition, value) -> decoded.put(condition, new BigDecimal(value.n())));
+            state.probabilities(Map.copyOf(decoded));
+        }
+        AttributeValue askedQuestions = item.get(ASKED_QUESTIONS);
+        if (askedQuestions != null) {
+            Map<String, ResponseType> decoded = new HashMap<>(askedQuestions.m().size() * 2);
+            askedQuestions.m().forEach((question, value) -> decoded.put(question, ResponseType.fromString(value.s())));
+            state.askedQuestions(Map.copyOf(decoded));
+        }
+        return state.build();
+    }
+
+    private static void putIfPresent(Map<String, AttributeValue> item, String name, String value) {
+        if (value != null) {
+            item.put(name, string(value));
+        }
+    }
+
+    private static String stringOrNull(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value == null ? null : value.s();
+    }
+
+    private static AttributeValue string(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+}
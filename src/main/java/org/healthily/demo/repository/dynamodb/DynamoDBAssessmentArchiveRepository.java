@@ -0,0 +1,63 @@
+package org.healthily.demo.repository.dynamodb;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.repository.AssessmentArchiveRepository;
+import org.healthily.demo.repository.AssessmentRepository;
+import org.healthily.demo.repository.DynamoDBCallExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+
+import java.util.Map;
+
+/**
+ * Cold tier for completed assessments. Items are compacted to the diagnosis and the top-K probabilities and outlive
+ * the TTL of the hot assessments table.
+ */
+@Repository
+@Profile("!in-memory")
+@Slf4j
+@RequiredArgsConstructor
+public class DynamoDBAssessmentArchiveRepository implements AssessmentArchiveRepository {
+
+    private final DynamoDbClient dynamoDB;
+    private final DynamoDBCallExecutor callExecutor;
+
+    @Value("${dynamodb.table.assessments_archive}")
+    private String tableName;
+
+    @Value("${assessment.lifecycle.archive-top-k}")
+    private int topK;
+
+    @Override
+    public void archive(AssessmentState assessment) {
+        Map<String, AttributeValue> item = AssessmentItemCodec.encode(AssessmentArchiveRepository.compact(assessment, topK));
+
+        callExecutor.execute("archiveAssessment", () -> dynamoDB.putItem(PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .build()));
+    }
+
+    /**
+     * Same attributes as {@link AssessmentRepository#getAssessmentResult}.
+     */
+    @Override
+    public AssessmentState getArchivedResult(String assessmentId) {
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("id", AttributeValue.builder()
+                        .s(assessmentId).build()))
+                .projectionExpression("user_id, #status, diagnosis, probabilities")
+                .expressionAttributeNames(Map.of("#status", "status"))
+                .build();
+
+        return AssessmentItemCodec.decode(callExecutor.read("getArchivedResult", () -> dynamoDB.getItem(request)).item());
+    }
+}
@@ -0,0 +1,207 @@
+package org.healthily.demo.repository.dynamodb;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.repository.AssessmentRepository;
+import org.healthily.demo.repository.DynamoDBCallExecutor;
+import org.healthily.demo.resilience.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@Profile("!in-memory")
+@Slf4j
+public class DynamoDBAssessmentRepository implements AssessmentRepository {
+
+    private final DynamoDbClient dynamoDB;
+    private final DynamoDBCallExecutor callExecutor;
+    // Concurrent reads of the same assessment, e.g. result polling from several devices, share one GetItem
+    private final SingleFlight<String, AssessmentState> assessmentReads;
+    private final SingleFlight<String, AssessmentState> resultReads;
+
+    @Value("${dynamodb.table.assessments}")
+    private String tableName;
+
+    @Value("${assessment.lifecycle.hot-retention}")
+    private Duration hotRetention;
+
+    public DynamoDBAssessmentRepository(DynamoDbClient dynamoDB, DynamoDBCallExecutor callExecutor, MeterRegistry registry) {
+        this.dynamoDB = dynamoDB;
+        this.callExecutor = callExecutor;
+        this.assessmentReads = new SingleFlight<>("getAssessment", registry);
+        this.resultReads = new SingleFlight<>("getAssessmentResult", registry);
+    }
+
+    /**
+     * @return {@code null} when the assessment does not exist
+     */
+    @Override
+    public AssessmentState getAssessment(String assessmentId) {
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("id", AttributeValue.builder()
+                        .s(assessmentId).build()))
+                .build();
+
+        return assessmentReads.execute(assessmentId, () ->
+                AssessmentItemCodec.decode(callExecutor.read("getAssessment", () -> dynamoDB.getItem(request)).item()));
+    }
+
+    /**
+     * Reads only the attributes needed to build an assessment result: user id, status, diagnosis and probabilities.
+     */
+    @Override
+    public AssessmentState getAssessmentResult(String assessmentId) {
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("id", AttributeValue.builder()
+                        .s(assessmentId).build()))
+                .projectionExpression("user_id, #status, diagnosis, probabilities")
+                .expressionAttributeNames(Map.of("#status", "status"))
+                .build();
+
+        return resultReads.execute(assessmentId, () ->
+                AssessmentItemCodec.decode(callExecutor.read("getAssessmentResult", () -> dynamoDB.getItem(request)).item()));
+    }
+
+    @Override
+    public void saveAssessment(AssessmentState assessment) {
+        Map<String, AttributeValue> item = toItem(assessment);
+        try {
+            callExecutor.execute("saveAssessment", () -> dynamoDB.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(item)
+                    .build()));
+        } finally {
+            forgetReads(assessment.getId());
+        }
+    }
+
+    /**
+     * Puts a new assessment unless one with the same id already exists.
+     *
+     * @return the existing assessment when the id was taken, {@code null} when the item was written
+     */
+    @Override
+    public AssessmentState createAssessment(AssessmentState assessment) {
+        Map<String, AttributeValue> item = toItem(assessment);
+        try {
+            callExecutor.execute("createAssessment", () -> dynamoDB.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(item)
+                    .conditionExpression("attribute_not_exists(id)")
+                    .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                    .build()));
+            return null;
+        } catch (ConditionalCheckFailedException e) {
+            return currentItem(assessment.getId(), e);
+        } finally {
+            forgetReads(assessment.getId());
+        }
+    }
+
+    /**
+     * Writes the assessment only if it still expects {@code expectedQuestionId}, so concurrent answers cannot
+     * overwrite each other.
+     *
+     * @return the current assessment when another write got there first, {@code null} when the item was written
+     */
+    @Override
+    public AssessmentState updateAssessment(AssessmentState assessment, String expectedQuestionId) {
+        Map<String, AttributeValue> item = toItem(assessment);
+        try {
+            callExecutor.execute("updateAssessment", () -> dynamoDB.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(item)
+                    .conditionExpression("next_question_id = :expected")
+                    .expressionAttributeValues(Map.of(":expected", AttributeValue.builder()
+                            .s(expectedQuestionId).build()))
+                    .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                    .build()));
+            return null;
+        } catch (ConditionalCheckFailedException e) {
+            return currentItem(assessment.getId(), e);
+        } finally {
+            forgetReads(assessment.getId());
+        }
+    }
+
+    @Override
+    public void expireAfterArchive(String assessmentId) {
+        try {
+            callExecutor.execute("expireAfterArchive", () -> dynamoDB.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of("id", AttributeValue.builder().s(assessmentId).build()))
+                    .updateExpression("SET expires_at = :expiresAt")
+                    .conditionExpression("attribute_exists(id)")
+                    .expressionAttributeValues(Map.of(":expiresAt", AttributeValue.builder()
+                            .n(String.valueOf(Instant.now().plus(hotRetention).getEpochSecond()))
+                            .build()))
+                    .build()));
+        } catch (ConditionalCheckFailedException e) {
+            log.info("Assessment {} is gone from the hot table, nothing to expire", assessmentId);
+        }
+    }
+
+    /**
+     * Newest first page of a user's assessments from the user_id index, summary attributes only.
+     */
+    @Override
+    public HistoryPage findByUserId(String userId, int limit, Map<String, AttributeValue> exclusiveStartKey) {
+        QueryRequest queryRequest = QueryRequest.builder()
+                .tableName(tableName)
+                .indexName("user_id-created_at-index")
+                .keyConditionExpression("user_id = :userId")
+                .expressionAttributeValues(Map.of(":userId", AttributeValue.builder().s(userId).build()))
+                .projectionExpression("id, #status, diagnosis, initial_symptoms, created_at")
+                .expressionAttributeNames(Map.of("#status", "status"))
+                .scanIndexForward(false)
+                .limit(limit)
+                .exclusiveStartKey(exclusiveStartKey)
+                .build();
+
+        QueryResponse response = callExecutor.execute("findByUserId", () -> dynamoDB.query(queryRequest));
+        List<AssessmentState> assessments = response.items().stream()
+                .map(AssessmentItemCodec::decode)
+                .toList();
+        return new HistoryPage(assessments, response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null);
+    }
+
+    // Never carries expires_at, completed items only get one through expireAfterArchive once their archive copy exists
+    private static Map<String, AttributeValue> toItem(AssessmentState assessment) {
+        return AssessmentItemCodec.encode(assessment);
+    }
+
+    // Reads that started before the write must not be handed to callers that arrive after it
+    private void forgetReads(String assessmentId) {
+        assessmentReads.forget(assessmentId);
+        resultReads.forget(assessmentId);
+    }
+
+    private static AssessmentState currentItem(String assessmentId, ConditionalCheckFailedException e) {
+        AssessmentState current = AssessmentItemCodec.decode(e.item());
+        if (current == null) {
+            throw ResourceNotFoundException.builder()
+                    .message("Assessment %s not found".formatted(assessmentId))
+                    .build();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,132 @@
+package org.healthily.demo.repository.dynamodb;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.exception.BackendUnavailableException;
+import org.healthily.demo.repository.DynamoDBCallExecutor;
+import org.healthily.demo.repository.HealthDataRepository;
+import org.healthily.demo.tracing.CatalogLoadEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Repository
+@Profile("!in-memory")
+@Slf4j
+@RequiredArgsConstructor
+public class DynamoDBHealthDataRepository implements HealthDataRepository {
+    private final DynamoDbClient dynamoDB;
+    private final DynamoDBCallExecutor callExecutor;
+    private final MeterRegistry registry;
+
+    // Last catalog successfully read from DynamoDB, served while DynamoDB is unavailable
+    private final AtomicReference<List<Map<String, AttributeValue>>> conditionsSnapshot = new AtomicReference<>();
+    private final AtomicReference<List<Map<String, AttributeValue>>> symptomsSnapshot = new AtomicReference<>();
+    private final AtomicBoolean conditionsStale = new AtomicBoolean();
+    private final AtomicBoolean symptomsStale = new AtomicBoolean();
+
+    @Value("${dynamodb.table.health_data}")
+    private String tableName;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("catalog.stale", conditionsStale, stale -> stale.get() ? 1 : 0)
+                .description("1 while the catalog is served from the last good snapshot")
+                .tag("catalog", "conditions")
+                .register(registry);
+        Gauge.builder("catalog.stale", symptomsStale, stale -> stale.get() ? 1 : 0)
+                .description("1 while the catalog is served from the last good snapshot")
+                .tag("catalog", "symptoms")
+                .register(registry);
+    }
+
+    @Override
+    @Cacheable(value = "conditions", sync = true)
+    public List<Map<String, AttributeValue>> getAllConditions() {
+        log.info("Fetching all conditions from DynamoDB");
+        return scanCatalog("getAllConditions", "CONDITION", "conditions", conditionsSnapshot, conditionsStale);
+    }
+
+    @Override
+    @Cacheable(value = "symptoms", sync = true)
+    public List<Map<String, AttributeValue>> getAllSymptoms() {
+        log.info("Fetching all symptoms from DynamoDB");
+        return scanCatalog("getAllSymptoms", "SYMPTOM", "symptoms", symptomsSnapshot, symptomsStale);
+    }
+
+    @Override
+    @Cacheable(value = "symptom", key = "#symptomId")
+    public Map<String, AttributeValue> getSymptom(String symptomId) {
+        log.info("Fetching symptom {} from DynamoDB", symptomId);
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(tableName)
+                .key((Map.of("id", AttributeValue.builder().s("SYMPTOM#" + symptomId).build())))
+                .build();
+
+        try {
+            return callExecutor.execute("getSymptom", () -> dynamoDB.getItem(request)).item();
+        } catch (BackendUnavailableException e) {
+            List<Map<String, AttributeValue>> snapshot = staleSnapshot("symptoms", symptomsSnapshot, symptomsStale, e);
+            return snapshot.stream()
+                    .filter(symptom -> ("SYMPTOM#" + symptomId).equals(symptom.get("id").s()))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private List<Map<String, AttributeValue>> scanCatalog(String operation,
+                                                         String entityType,
+                                                         String catalog,
+                                                         AtomicReference<List<Map<String, AttributeValue>>> snapshot,
+                                                         AtomicBoolean stale) {
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName(tableName)
+                .filterExpression("entityType = :entityType")
+                .expressionAttributeValues(
+                        Map.of(":entityType", AttributeValue.builder().s(entityType).build()))
+                .build();
+
+        CatalogLoadEvent event = CatalogLoadEvent.start(catalog);
+        List<Map<String, AttributeValue>> items = List.of();
+        try {
+            items = callExecutor.execute(operation, () -> dynamoDB.scan(scanRequest)).items();
+            snapshot.set(items);
+            stale.set(false);
+            return items;
+        } catch (BackendUnavailableException e) {
+            items = staleSnapshot(catalog, snapshot, stale, e);
+            return items;
+        } finally {
+            event.finish(items.size(), stale.get());
+        }
+    }
+
+    // The stale snapshot ends up in the catalog cache, so the flag stays up until the next successful reload
+    private List<Map<String, AttributeValue>> staleSnapshot(String catalog,
+                                                           AtomicReference<List<Map<String, AttributeValue>>> snapshot,
+                                                           AtomicBoolean stale,
+                                                           BackendUnavailableException cause) {
+        List<Map<String, AttributeValue>> lastGood = snapshot.get();
+        if (lastGood == null) {
+            throw cause;
+        }
+        if (!stale.getAndSet(true)) {
+            log.warn("DynamoDB unavailable, serving {} from the last good snapshot", catalog);
+        }
+        registry.counter("catalog.stale.served", "catalog", catalog).increment();
+        return lastGood;
+    }
+}
@@ -0,0 +1,159 @@
+package org.healthily.demo.repository.dynamodb;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.repository.DynamoDBCallExecutor;
+import org.healthily.demo.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Refresh tokens are stored by the hash of the token, never the token itself. Expired items are removed by the
+ * table's TTL on {@code expires_at}.
+ */
+@Slf4j
+@Repository
+@Profile("!in-memory")
+@RequiredArgsConstructor
+public class DynamoDBRefreshTokenRepository implements RefreshTokenRepository {
+
+    private final DynamoDbClient dynamoDB;
+    private final DynamoDBCallExecutor callExecutor;
+
+    @Value("${dynamodb.table.refresh_tokens}")
+    private String tableName;
+
+    @Override
+    public void save(String tokenHash, String userId, String role, Instant issuedAt, Instant expiresAt) {
+        Map<String, AttributeValue> item = item(tokenHash, userId, role, issuedAt, expiresAt);
+
+        callExecutor.execute("saveRefreshToken", () -> dynamoDB.putItem(PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .build()));
+    }
+
+    /**
+     * Atomically marks the token as used and links it to its successor, if it is unused, unrevoked and unexpired.
+     * The conditional update and the successor put go through one transaction, so a token can only ever be rotated
+     * once and is never consumed without its successor being stored. The read beforehand supplies the owner and role
+     * the successor is written with.
+     */
+    @Override
+    public Rotation rotate(String tokenHash, String successorHash, Instant now, Instant successorExpiresAt) {
+        RefreshToken token = toToken(currentItem(tokenHash));
+        if (token == null || token.used() || token.revoked()) {
+            return new Rotation(token, false);
+        }
+
+        AttributeValue nowValue = AttributeValue.builder().n(String.valueOf(now.getEpochSecond())).build();
+        TransactWriteItemsRequest request = TransactWriteItemsRequest.builder()
+                .transactItems(
+                        TransactWriteItem.builder().update(Update.builder()
+                                .tableName(tableName)
+                                .key(Map.of("id", AttributeValue.builder().s(tokenHash).build()))
+                                .updateExpression("SET used_at = :now, replaced_by = :successor")
+                                .conditionExpression("attribute_exists(id) AND attribute_not_exists(used_at) "
+                                        + "AND attribute_not_exists(revoked_at) AND expires_at > :now")
+                                .expressionAttributeValues(Map.of(
+                                        ":now", nowValue,
+                                        ":successor", AttributeValue.builder().s(successorHash).build()))
+                                .build()).build(),
+                        TransactWriteItem.builder().put(Put.builder()
+                                .tableName(tableName)
+                                .item(item(successorHash, token.userId(), token.role(), now, successorExpiresAt))
+                                .conditionExpression("attribute_not_exists(id)")
+                                .build()).build())
+                .build();
+
+        try {
+            callExecutor.execute("rotateRefreshToken", () -> dynamoDB.transactWriteItems(request));
+            return new Rotation(new RefreshToken(token.userId(), token.role(), token.issuedAt(), successorHash,
+                    true, false), true);
+        } catch (TransactionCanceledException e) {
+            if (!isConditionalCheckFailure(e)) {
+                throw e;
+            }
+            // Expired, or used or revoked since the read
+            return new Rotation(toToken(currentItem(tokenHash)), false);
+        }
+    }
+
+    /**
+     * @return the token that replaced the revoked one, if any
+     */
+    @Override
+    public String revoke(String tokenHash, Instant now) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("id", AttributeValue.builder().s(tokenHash).build()))
+                .updateExpression("SET revoked_at = :now")
+                .conditionExpression("attribute_exists(id)")
+                .expressionAttributeValues(Map.of(
+                        ":now", AttributeValue.builder().n(String.valueOf(now.getEpochSecond())).build()))
+                .returnValues(ReturnValue.ALL_NEW)
+                .build();
+
+        try {
+            RefreshToken token = toToken(callExecutor.execute("revokeRefreshToken",
+                    () -> dynamoDB.updateItem(request)).attributes());
+            return token == null ? null : token.replacedBy();
+        } catch (ConditionalCheckFailedException e) {
+            return null;
+        }
+    }
+
+    private Map<String, AttributeValue> currentItem(String tokenHash) {
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("id", AttributeValue.builder().s(tokenHash).build()))
+                .consistentRead(true)
+                .build();
+        return callExecutor.execute("getRefreshToken", () -> dynamoDB.getItem(request)).item();
+    }
+
+    private static Map<String, AttributeValue> item(String tokenHash, String userId, String role, Instant issuedAt,
+                                                    Instant expiresAt) {
+        return Map.of(
+                "id", AttributeValue.builder().s(tokenHash).build(),
+                "user_id", AttributeValue.builder().s(userId).build(),
+                "role", AttributeValue.builder().s(role).build(),
+                "issued_at", AttributeValue.builder().n(String.valueOf(issuedAt.getEpochSecond())).build(),
+                "expires_at", AttributeValue.builder().n(String.valueOf(expiresAt.getEpochSecond())).build()
+        );
+    }
+
+    private static boolean isConditionalCheckFailure(TransactionCanceledException e) {
+        return e.hasCancellationReasons() && e.cancellationReasons().stream()
+                .anyMatch(reason -> "ConditionalCheckFailed".equals(reason.code()));
+    }
+
+    private static RefreshToken toToken(Map<String, AttributeValue> item) {
+        if (item == null || item.isEmpty()) {
+            return null;
+        }
+        return new RefreshToken(
+                item.get("user_id").s(),
+                item.get("role").s(),
+                Instant.ofEpochSecond(Long.parseLong(item.get("issued_at").n())),
+                item.containsKey("replaced_by") ? item.get("replaced_by").s() : null,
+                item.containsKey("used_at"),
+                item.containsKey("revoked_at"));
+    }
+}
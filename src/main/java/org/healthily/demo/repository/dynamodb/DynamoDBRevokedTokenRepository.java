@@ -0,0 +1,105 @@
+package org.healthily.demo.repository.dynamodb;
+
+import lombok.RequiredArgsConstructor;
+import org.healthily.demo.repository.DynamoDBCallExecutor;
+import org.healthily.demo.repository.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Revocations live in a single partition sorted by revocation time, so every node can fetch what changed since its
+ * last refresh with one query. Expired revocations are removed by the table's TTL on {@code expires_at}.
+ */
+@Repository
+@Profile("!in-memory")
+@RequiredArgsConstructor
+public class DynamoDBRevokedTokenRepository implements RevokedTokenRepository {
+
+    private static final String PARTITION = "REVOKED";
+
+    private final DynamoDbClient dynamoDB;
+    private final DynamoDBCallExecutor callExecutor;
+
+    @Value("${dynamodb.table.revoked_tokens}")
+    private String tableName;
+
+    @Override
+    public void revokeToken(String tokenId, String userId, Instant revokedAt, Instant expiresAt) {
+        Map<String, AttributeValue> item = item(tokenId, userId, revokedAt, expiresAt);
+        item.put("jti", AttributeValue.builder().s(tokenId).build());
+        put("revokeToken", item);
+    }
+
+    /**
+     * Revokes every token of the user issued up to {@code revokedAt}.
+     */
+    @Override
+    public void revokeUser(String userId, Instant revokedAt, Instant expiresAt) {
+        put("revokeUser", item("USER#" + userId, userId, revokedAt, expiresAt));
+    }
+
+    /**
+     * @return the unexpired revocations made after {@code since}, oldest first
+     */
+    @Override
+    public List<Revocation> findRevokedSince(Instant since, Instant now) {
+        List<Revocation> revocations = new ArrayList<>();
+        Map<String, AttributeValue> lastEvaluatedKey = null;
+        do {
+            QueryRequest request = QueryRequest.builder()
+                    .tableName(tableName)
+                    .keyConditionExpression("pk = :pk AND sk > :since")
+                    .filterExpression("expires_at > :now")
+                    .expressionAttributeValues(Map.of(
+                            ":pk", AttributeValue.builder().s(PARTITION).build(),
+                            ":since", AttributeValue.builder().s(sortKeyPrefix(since)).build(),
+                            ":now", AttributeValue.builder().n(String.valueOf(now.getEpochSecond())).build()))
+                    .exclusiveStartKey(lastEvaluatedKey)
+                    .build();
+
+            QueryResponse response = callExecutor.execute("findRevokedSince", () -> dynamoDB.query(request));
+            response.items().forEach(item -> revocations.add(new Revocation(
+                    item.containsKey("jti") ? item.get("jti").s() : null,
+                    item.get("user_id").s(),
+                    Instant.ofEpochMilli(Long.parseLong(item.get("revoked_at").n())),
+                    Instant.ofEpochSecond(Long.parseLong(item.get("expires_at").n())))));
+            lastEvaluatedKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (lastEvaluatedKey != null);
+        return revocations;
+    }
+
+    private Map<String, AttributeValue> item(String subject, String userId, Instant revokedAt, Instant expiresAt) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("pk", AttributeValue.builder().s(PARTITION).build());
+        item.put("sk", AttributeValue.builder().s(sortKeyPrefix(revokedAt) + "#" + subject).build());
+        item.put("user_id", AttributeValue.builder().s(userId).build());
+        item.put("revoked_at", AttributeValue.builder().n(String.valueOf(revokedAt.toEpochMilli())).build());
+        item.put("expires_at", AttributeValue.builder().n(String.valueOf(expiresAt.getEpochSecond())).build());
+        return item;
+    }
+
+    private void put(String operation, Map<String, AttributeValue> item) {
+        callExecutor.execute(operation, () -> dynamoDB.putItem(PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .build()));
+    }
+
+    // Zero padded so that the string order of the sort key is the time order
+    private static String sortKeyPrefix(Instant instant) {
+        return "%013d".formatted(Math.max(0, instant.toEpochMilli()));
+    }
+}
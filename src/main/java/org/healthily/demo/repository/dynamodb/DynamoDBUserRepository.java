@@ -0,0 +1,142 @@
+package org.healthily.demo.repository.dynamodb;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.model.dto.RegisterRequest;
+import org.healthily.demo.repository.DynamoDBCallExecutor;
+import org.healthily.demo.repository.UserRepository;
+import org.healthily.demo.security.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Repository
+@Profile("!in-memory")
+@RequiredArgsConstructor
+public class DynamoDBUserRepository implements UserRepository {
+    private static final String EMAIL_GUARD_PREFIX = "EMAIL#";
+
+    private final DynamoDbClient dynamoDB;
+    private final DynamoDBCallExecutor callExecutor;
+
+    @Value("${dynamodb.table.users}")
+    private String usersTable;
+
+    /**
+     * Writes the user together with an {@code EMAIL#} guard item in one transaction, so the uniqueness check and the
+     * insert are atomic. Returns false when the email is already registered. Users registered before the guard items
+     * existed get theirs from {@code DynamoDBInitializer}.
+     */
+    @Override
+    public boolean createUser(RegisterRequest registerRequest, String passwordHash) {
+        String userId = UUID.randomUUID().toString();
+
+        Map<String, AttributeValue> item = Map.of(
+                "id", AttributeValue.builder().s(userId).build(),
+                "email", AttributeValue.builder().s(registerRequest.getEmail()).build(),
+                "password", AttributeValue.builder().s(passwordHash).build(),
+                "age", AttributeValue.builder().n(String.valueOf(registerRequest.getAge())).build(),
+                "gender", AttributeValue.builder().s(registerRequest.getGender()).build(),
+                "entityType", AttributeValue.builder().s("USER").build()
+        );
+
+        TransactWriteItemsRequest request = TransactWriteItemsRequest.builder()
+                .transactItems(
+                        TransactWriteItem.builder().put(Put.builder()
+                                .tableName(usersTable)
+                                .item(emailGuard(registerRequest.getEmail(), userId))
+                                .conditionExpression("attribute_not_exists(id)")
+                                .build()).build(),
+                        TransactWriteItem.builder().put(Put.builder()
+                                .tableName(usersTable)
+                                .item(item)
+                                .conditionExpression("attribute_not_exists(id)")
+                                .build()).build())
+                .build();
+
+        try {
+            callExecutor.execute("createUser", () -> dynamoDB.transactWriteItems(request));
+            return true;
+        } catch (TransactionCanceledException e) {
+            if (isConditionalCheckFailure(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the password hash unless it changed since {@code currentHash} was read.
+     */
+    @Override
+    public void updatePasswordHash(String userId, String currentHash, String newHash) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(usersTable)
+                .key(Map.of("id", AttributeValue.builder().s(userId).build()))
+                .updateExpression("SET password = :new")
+                .conditionExpression("attribute_exists(id) AND password = :current")
+                .expressionAttributeValues(Map.of(
+                        ":new", AttributeValue.builder().s(newHash).build(),
+                        ":current", AttributeValue.builder().s(currentHash).build()))
+                .build();
+
+        try {
+            callExecutor.execute("updatePasswordHash", () -> dynamoDB.updateItem(request));
+        } catch (ConditionalCheckFailedException e) {
+            log.info("Password of user {} changed concurrently, skipping hash upgrade", userId);
+        }
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        Map<String, AttributeValue> expressionAttributeValues = Map.of(
+                ":email", AttributeValue.builder().s(email).build(),
+                ":entityType", AttributeValue.builder().s("USER").build()
+        );
+
+        QueryRequest queryRequest = QueryRequest.builder()
+                .tableName(usersTable)
+                .indexName("email-index")
+                .keyConditionExpression("email = :email")
+                .filterExpression("entityType = :entityType")
+                .expressionAttributeValues(expressionAttributeValues)
+                .build();
+
+        QueryResponse response = callExecutor.read("findByEmail", () -> dynamoDB.query(queryRequest));
+
+        if (response.items().isEmpty()) {
+            return null;
+        }
+
+        Map<String, AttributeValue> item = response.items().get(0);
+
+        return User.builder()
+                .id(item.get("id").s().replace("USER#", ""))
+                .email(item.get("email").s())
+                .password(item.get("password").s())
+                .age(Integer.parseInt(item.get("age").n()))
+                .gender(item.get("gender").s())
+                .entityType(item.get("entityType").s())
+                .build();
+    }
+
+    // No email attribute, so the guard never shows up in the email-index
+    public static Map<String, AttributeValue> emailGuard(String email, String userId) {
+        return Map.of(
+                "id", AttributeValue.builder().s(EMAIL_GUARD_PREFIX + email).build(),
+                "userId", AttributeValue.builder().s(userId).build(),
+                "entityType", AttributeValue.builder().s("EMAIL").build()
+        );
+    }
+
+    private static boolean isConditionalCheckFailure(TransactionCanceledException e) {
+        return e.hasCancellationReasons() && e.cancellationReasons().stream()
+                .anyMatch(reason -> "ConditionalCheckFailed".equals(reason.code()));
+    }
+}
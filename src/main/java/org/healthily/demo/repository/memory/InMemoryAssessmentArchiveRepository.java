@@ -0,0 +1,42 @@
+package org.healthily.demo.repository.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.repository.AssessmentArchiveRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Repository
+@Profile("in-memory")
+public class InMemoryAssessmentArchiveRepository implements AssessmentArchiveRepository {
+
+    private final Map<String, AssessmentState> archive = new ConcurrentHashMap<>();
+    private final int topK;
+
+    public InMemoryAssessmentArchiveRepository(InMemorySnapshots snapshots,
+                                               @Value("${assessment.lifecycle.archive-top-k}") int topK) {
+        this.topK = topK;
+        List<StoredAssessment> restored = snapshots.register("archive", new TypeReference<>() {
+        }, () -> archive.values().stream()
+                .map(assessment -> StoredAssessment.of(assessment, 0))
+                .toList());
+        if (restored != null) {
+            restored.forEach(stored -> archive.put(stored.id(), stored.toState()));
+        }
+    }
+
+    @Override
+    public void archive(AssessmentState assessment) {
+        archive.put(assessment.getId(), AssessmentArchiveRepository.compact(assessment, topK));
+    }
+
+    @Override
+    public AssessmentState getArchivedResult(String assessmentId) {
+        return archive.get(assessmentId);
+    }
+}
@@ -0,0 +1,167 @@
+package org.healthily.demo.repository.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.repository.AssessmentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Assessments in a {@link ConcurrentHashMap}, whose per-bin locking makes every conditional write atomic without a
+ * global lock. Archived assessments expire after the hot retention like the DynamoDB TTL, their compact copies stay in
+ * {@link InMemoryAssessmentArchiveRepository}.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryAssessmentRepository implements AssessmentRepository {
+
+    private static final Comparator<HistoryKey> NEWEST_FIRST =
+            Comparator.comparingLong(HistoryKey::createdAt).thenComparing(HistoryKey::id).reversed();
+
+    private final Map<String, Entry> assessments = new ConcurrentHashMap<>();
+    // Stands in for the user_id index, entries of purged assessments are dropped with them
+    private final Map<String, NavigableSet<HistoryKey>> byUser = new ConcurrentHashMap<>();
+    private final Duration hotRetention;
+
+    public InMemoryAssessmentRepository(InMemorySnapshots snapshots,
+                                        @Value("${assessment.lifecycle.hot-retention}") Duration hotRetention) {
+        this.hotRetention = hotRetention;
+        List<StoredAssessment> restored = snapshots.register("assessments", new TypeReference<>() {
+        }, () -> assessments.values().stream()
+                .map(entry -> StoredAssessment.of(entry.state(), entry.expiresAt()))
+                .toList());
+        if (restored != null) {
+            restored.forEach(stored -> put(new Entry(stored.toState(), stored.expiresAt())));
+        }
+    }
+
+    @Override
+    public AssessmentState getAssessment(String assessmentId) {
+        Entry entry = assessments.get(assessmentId);
+        return entry == null ? null : entry.state();
+    }
+
+    @Override
+    public AssessmentState getAssessmentResult(String assessmentId) {
+        return getAssessment(assessmentId);
+    }
+
+    @Override
+    public void saveAssessment(AssessmentState assessment) {
+        put(new Entry(assessment, 0));
+    }
+
+    @Override
+    public AssessmentState createAssessment(AssessmentState assessment) {
+        Entry existing = assessments.putIfAbsent(assessment.getId(), new Entry(assessment, 0));
+        if (existing != null) {
+            return existing.state();
+        }
+        index(assessment);
+        return null;
+    }
+
+    @Override
+    public AssessmentState updateAssessment(AssessmentState assessment, String expectedQuestionId) {
+        Entry updated = new Entry(assessment, 0);
+        Entry current = assessments.computeIfPresent(assessment.getId(), (id, existing) ->
+                Objects.equals(existing.state().getNextQuestionId(), expectedQuestionId) ? updated : existing);
+        if (current == null) {
+            throw ResourceNotFoundException.builder()
+                    .message("Assessment %s not found".formatted(assessment.getId()))
+                    .build();
+        }
+        return current == updated ? null : current.state();
+    }
+
+    @Override
+    public HistoryPage findByUserId(String userId, int limit, Map<String, AttributeValue> exclusiveStartKey) {
+        NavigableSet<HistoryKey> keys = byUser.get(userId);
+        if (keys == null) {
+            return new HistoryPage(List.of(), null);
+        }
+        if (exclusiveStartKey != null) {
+            keys = keys.tailSet(new HistoryKey(Long.parseLong(exclusiveStartKey.get("created_at").n()),
+                    exclusiveStartKey.get("id").s()), false);
+        }
+
+        List<AssessmentState> items = new ArrayList<>(limit);
+        HistoryKey last = null;
+        for (HistoryKey key : keys) {
+            if (items.size() == limit) {
+                return new HistoryPage(items, Map.of(
+                        "user_id", AttributeValue.builder().s(userId).build(),
+                        "created_at", AttributeValue.builder().n(String.valueOf(last.createdAt())).build(),
+                        "id", AttributeValue.builder().s(last.id()).build()));
+            }
+            Entry entry = assessments.get(key.id());
+            if (entry != null) {
+                items.add(summary(entry.state()));
+                last = key;
+            }
+        }
+        return new HistoryPage(items, null);
+    }
+
+    @Override
+    public void expireAfterArchive(String assessmentId) {
+        long expiresAt = System.currentTimeMillis() + hotRetention.toMillis();
+        assessments.computeIfPresent(assessmentId, (id, entry) -> new Entry(entry.state(), expiresAt));
+    }
+
+    @Scheduled(fixedDelayString = "${repository.in-memory.expiry-interval}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        assessments.forEach((id, entry) -> {
+            if (entry.expiresAt() > 0 && entry.expiresAt() <= now && assessments.remove(id, entry)) {
+                NavigableSet<HistoryKey> keys = byUser.get(entry.state().getUserId());
+                if (keys != null) {
+                    keys.remove(new HistoryKey(entry.state().getCreatedAt(), id));
+                }
+            }
+        });
+    }
+
+    private void put(Entry entry) {
+        assessments.put(entry.state().getId(), entry);
+        index(entry.state());
+    }
+
+    private void index(AssessmentState assessment) {
+        byUser.computeIfAbsent(assessment.getUserId(), userId -> new ConcurrentSkipListSet<>(NEWEST_FIRST))
+                .add(new HistoryKey(assessment.getCreatedAt(), assessment.getId()));
+    }
+
+    private static AssessmentState summary(AssessmentState assessment) {
+        return AssessmentState.builder()
+                .id(assessment.getId())
+                .status(assessment.getStatus())
+                .diagnosis(assessment.getDiagnosis())
+                .initialSymptoms(assessment.getInitialSymptoms())
+                .createdAt(assessment.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * @param expiresAt epoch millis, 0 until the assessment is archived
+     */
+    private record Entry(AssessmentState state, long expiresAt) {
+    }
+
+    private record HistoryKey(long createdAt, String id) {
+    }
+}
@@ -0,0 +1,44 @@
+package org.healthily.demo.repository.memory;
+
+import org.healthily.demo.repository.CatalogSeed;
+import org.healthily.demo.repository.HealthDataRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the seed catalog from immutable collections, so it needs neither a cache nor a lock.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryHealthDataRepository implements HealthDataRepository {
+
+    private final List<Map<String, AttributeValue>> conditions = CatalogSeed.CONDITIONS.stream()
+            .map(condition -> Map.copyOf(condition.toItem()))
+            .toList();
+    private final List<Map<String, AttributeValue>> symptoms = CatalogSeed.SYMPTOMS.stream()
+            .map(symptom -> Map.copyOf(symptom.toItem()))
+            .toList();
+    private final Map<String, Map<String, AttributeValue>> symptomsById = symptoms.stream()
+            .collect(Collectors.toUnmodifiableMap(symptom -> symptom.get("id").s(), Function.identity()));
+
+    @Override
+    public List<Map<String, AttributeValue>> getAllConditions() {
+        return conditions;
+    }
+
+    @Override
+    public List<Map<String, AttributeValue>> getAllSymptoms() {
+        return symptoms;
+    }
+
+    @Override
+    public Map<String, AttributeValue> getSymptom(String symptomId) {
+        return symptomsById.get("SYMPTOM#" + symptomId);
+    }
+}
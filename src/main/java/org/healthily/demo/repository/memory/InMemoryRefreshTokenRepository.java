@@ -0,0 +1,80 @@
+package org.healthily.demo.repository.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.healthily.demo.repository.RefreshTokenRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rotation and revocation are single {@code computeIfPresent} calls, so like the conditional update in DynamoDB a
+ * token can only ever be rotated once. The successor is stored by the rotating call, which cannot fail in between.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryRefreshTokenRepository implements RefreshTokenRepository {
+
+    private final Map<String, StoredToken> tokens = new ConcurrentHashMap<>();
+
+    public InMemoryRefreshTokenRepository(InMemorySnapshots snapshots) {
+        Map<String, StoredToken> restored = snapshots.register("refreshTokens", new TypeReference<>() {
+        }, () -> Map.copyOf(tokens));
+        if (restored != null) {
+            tokens.putAll(restored);
+        }
+    }
+
+    @Override
+    public void save(String tokenHash, String userId, String role, Instant issuedAt, Instant expiresAt) {
+        tokens.put(tokenHash, new StoredToken(userId, role, issuedAt.getEpochSecond(), expiresAt.getEpochSecond(),
+                null, false, false));
+    }
+
+    @Override
+    public Rotation rotate(String tokenHash, String successorHash, Instant now, Instant successorExpiresAt) {
+        AtomicBoolean rotated = new AtomicBoolean();
+        StoredToken token = tokens.computeIfPresent(tokenHash, (hash, current) -> {
+            if (current.used() || current.revoked() || current.expiresAt() <= now.getEpochSecond()) {
+                return current;
+            }
+            rotated.set(true);
+            return new StoredToken(current.userId(), current.role(), current.issuedAt(), current.expiresAt(),
+                    successorHash, true, false);
+        });
+        if (rotated.get()) {
+            save(successorHash, token.userId(), token.role(), now, successorExpiresAt);
+        }
+        return new Rotation(token == null ? null : token.toToken(), rotated.get());
+    }
+
+    @Override
+    public String revoke(String tokenHash, Instant now) {
+        StoredToken token = tokens.computeIfPresent(tokenHash, (hash, current) ->
+                new StoredToken(current.userId(), current.role(), current.issuedAt(), current.expiresAt(),
+                        current.replacedBy(), current.used(), true));
+        return token == null ? null : token.replacedBy();
+    }
+
+    @Scheduled(fixedDelayString = "${repository.in-memory.expiry-interval}")
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        tokens.values().removeIf(token -> token.expiresAt() <= now);
+    }
+
+    /**
+     * @param issuedAt  epoch seconds
+     * @param expiresAt epoch seconds
+     */
+    record StoredToken(String userId, String role, long issuedAt, long expiresAt, String replacedBy,
+                       boolean used, boolean revoked) {
+
+        RefreshToken toToken() {
+            return new RefreshToken(userId, role, Instant.ofEpochSecond(issuedAt), replacedBy, used, revoked);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.healthily.demo.repository.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.healthily.demo.repository.RevokedTokenRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Revocations sorted by the same time-prefixed key as the DynamoDB sort key, so a refresh is a tail view.
+ */
+@Repository
+@Profile("in-memory")
+public class InMemoryRevokedTokenRepository implements RevokedTokenRepository {
+
+    private final NavigableMap<String, Revocation> revocations = new ConcurrentSkipListMap<>();
+
+    public InMemoryRevokedTokenRepository(InMemorySnapshots snapshots) {
+        Map<String, Revocation> restored = snapshots.register("revocations", new TypeReference<>() {
+        }, () -> Map.copyOf(revocations));
+        if (restored != null) {
+            revocations.putAll(restored);
+        }
+    }
+
+    @Override
+    public void revokeToken(String tokenId, String userId, Instant revokedAt, Instant expiresAt) {
+        revocations.put(sortKeyPrefix(revokedAt) + "#" + tokenId, new Revocation(tokenId, userId, revokedAt, expiresAt));
+    }
+
+    @Override
+    public void revokeUser(String userId, Instant revokedAt, Instant expiresAt) {
+        revocations.put(sortKeyPrefix(revokedAt) + "#USER#" + userId, new Revocation(null, userId, revokedAt, expiresAt));
+    }
+
+    @Override
+    public List<Revocation> findRevokedSince(Instant since, Instant now) {
+        return revocations.tailMap(sortKeyPrefix(since), false).values().stream()
+                .filter(revocation -> revocation.expiresAt().isAfter(now))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${repository.in-memory.expiry-interval}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        revocations.values().removeIf(revocation -> !revocation.expiresAt().isAfter(now));
+    }
+
+    // Zero padded so that the string order of the key is the time order
+    private static String sortKeyPrefix(Instant instant) {
+        return "%013d".formatted(Math.max(0, instant.toEpochMilli()));
+    }
+}
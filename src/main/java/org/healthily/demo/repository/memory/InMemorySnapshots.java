@@ -0,0 +1,93 @@
+package org.healthily.demo.repository.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Optional persistence for the in-memory repositories. Every registered section is written to one JSON file on a
+ * fixed delay and on shutdown, and read back on startup. Sections are copied one after the other while writes go on,
+ * so a snapshot is not a point in time across repositories, and writes after the last snapshot are lost on a crash.
+ * Disabled when {@code repository.in-memory.snapshot-path} is empty.
+ */
+@Slf4j
+@Component
+@Profile("in-memory")
+public class InMemorySnapshots {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    private final Map<String, Supplier<?>> sections = new ConcurrentHashMap<>();
+    private final JsonNode restored;
+
+    public InMemorySnapshots(ObjectMapper objectMapper,
+                             @Value("${repository.in-memory.snapshot-path}") String snapshotPath) {
+        this.objectMapper = objectMapper;
+        this.path = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.restored = read();
+    }
+
+    /**
+     * Adds a section to every snapshot.
+     *
+     * @return the section as found in the snapshot on startup, {@code null} when there is none
+     */
+    public <T> T register(String name, TypeReference<T> type, Supplier<T> snapshot) {
+        sections.put(name, snapshot);
+        if (restored == null || !restored.has(name)) {
+            return null;
+        }
+        return objectMapper.convertValue(restored.get(name), type);
+    }
+
+    @Scheduled(fixedDelayString = "${repository.in-memory.snapshot-interval}")
+    public synchronized void write() {
+        if (path == null) {
+            return;
+        }
+        ObjectNode snapshot = objectMapper.createObjectNode();
+        sections.forEach((name, section) -> snapshot.set(name, objectMapper.valueToTree(section.get())));
+        try {
+            // Renamed into place, so a crash mid-write leaves the previous snapshot intact
+            Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), "snapshot-", ".tmp");
+            objectMapper.writeValue(temporary.toFile(), snapshot);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to write in-memory snapshot to {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        write();
+    }
+
+    private JsonNode read() {
+        if (path == null || !Files.exists(path)) {
+            return null;
+        }
+        try {
+            JsonNode snapshot = objectMapper.readTree(path.toFile());
+            log.info("Restoring in-memory repositories from {}", path);
+            return snapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read in-memory snapshot " + path, e);
+        }
+    }
+}
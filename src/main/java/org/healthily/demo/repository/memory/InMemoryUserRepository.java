@@ -0,0 +1,85 @@
+package org.healthily.demo.repository.memory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.model.dto.RegisterRequest;
+import org.healthily.demo.repository.UserRepository;
+import org.healthily.demo.security.User;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users keyed by email, so registration is a single {@code putIfAbsent}. Callers get copies, the stored users are
+ * never handed out.
+ */
+@Slf4j
+@Repository
+@Profile("in-memory")
+public class InMemoryUserRepository implements UserRepository {
+
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> emailsById = new ConcurrentHashMap<>();
+
+    public InMemoryUserRepository(InMemorySnapshots snapshots) {
+        List<User> restored = snapshots.register("users", new TypeReference<>() {
+        }, () -> List.copyOf(usersByEmail.values()));
+        if (restored != null) {
+            restored.forEach(user -> {
+                usersByEmail.put(user.getEmail(), user);
+                emailsById.put(user.getId(), user.getEmail());
+            });
+        }
+    }
+
+    @Override
+    public boolean createUser(RegisterRequest registerRequest, String passwordHash) {
+        User user = User.builder()
+                .id(UUID.randomUUID().toString())
+                .email(registerRequest.getEmail())
+                .password(passwordHash)
+                .age(registerRequest.getAge())
+                .gender(registerRequest.getGender())
+                .entityType("USER")
+                .build();
+        if (usersByEmail.putIfAbsent(user.getEmail(), user) != null) {
+            return false;
+        }
+        emailsById.put(user.getId(), user.getEmail());
+        return true;
+    }
+
+    @Override
+    public void updatePasswordHash(String userId, String currentHash, String newHash) {
+        String email = emailsById.get(userId);
+        if (email == null) {
+            return;
+        }
+        User updated = usersByEmail.computeIfPresent(email, (key, user) ->
+                currentHash.equals(user.getPassword()) ? copy(user, newHash) : user);
+        if (updated == null || !newHash.equals(updated.getPassword())) {
+            log.info("Password of user {} changed concurrently, skipping hash upgrade", userId);
+        }
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        User user = usersByEmail.get(email);
+        return user == null ? null : copy(user, user.getPassword());
+    }
+
+    private static User copy(User user, String passwordHash) {
+        return User.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .password(passwordHash)
+                .age(user.getAge())
+                .gender(user.getGender())
+                .entityType(user.getEntityType())
+                .build();
+    }
+}
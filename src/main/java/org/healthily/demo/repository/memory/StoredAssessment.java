@@ -0,0 +1,48 @@
+package org.healthily.demo.repository.memory;
+
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.AssessmentStatus;
+import org.healthily.demo.model.ResponseType;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot form of an assessment, {@link AssessmentState} itself is built through its builder only.
+ *
+ * @param expiresAt epoch millis after which a completed assessment leaves the hot store, 0 for never
+ */
+record StoredAssessment(String id,
+                        String userId,
+                        long createdAt,
+                        List<String> initialSymptoms,
+                        AssessmentStatus status,
+                        Map<String, BigDecimal> probabilities,
+                        Map<String, ResponseType> askedQuestions,
+                        String nextQuestionId,
+                        String diagnosis,
+                        String lastIdempotencyKey,
+                        long expiresAt) {
+
+    static StoredAssessment of(AssessmentState state, long expiresAt) {
+        return new StoredAssessment(state.getId(), state.getUserId(), state.getCreatedAt(), state.getInitialSymptoms(),
+                state.getStatus(), state.getProbabilities(), state.getAskedQuestions(), state.getNextQuestionId(),
+                state.getDiagnosis(), state.getLastIdempotencyKey(), expiresAt);
+    }
+
+    AssessmentState toState() {
+        return AssessmentState.builder()
+                .id(id)
+                .userId(userId)
+                .createdAt(createdAt)
+                .initialSymptoms(initialSymptoms == null ? List.of() : List.copyOf(initialSymptoms))
+                .status(status)
+                .probabilities(probabilities == null ? Map.of() : Map.copyOf(probabilities))
+                .askedQuestions(askedQuestions == null ? Map.of() : Map.copyOf(askedQuestions))
+                .nextQuestionId(nextQuestionId)
+                .diagnosis(diagnosis)
+                .lastIdempotencyKey(lastIdempotencyKey)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package org.healthily.demo.resilience;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sheds assessment traffic above the adaptive concurrency limit with a fast 503. Answers to ongoing assessments may
+ * fill the whole limit, reads a smaller share and new assessments the smallest, so under overload started
+ * assessments keep finishing while new ones are turned away first. Runs before Spring Security so rejected requests
+ * cost nothing beyond this filter.
+ */
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    enum Group {
+        ANSWER("answer"),
+        READ("read"),
+        START("start");
+
+        private final String tag;
+
+        Group(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ConcurrencyLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<Group, Counter> rejected = new EnumMap<>(Group.class);
+    private final Counter dropped;
+
+    public AdaptiveConcurrencyFilter(ConcurrencyLimitProperties properties, ObjectMapper objectMapper,
+                                     MeterRegistry registry) {
+        this.limiter = new AdaptiveConcurrencyLimiter(properties);
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        for (Group group : Group.values()) {
+            rejected.put(group, registry.counter("assessment.concurrency.rejected", "group", group.tag));
+        }
+        this.dropped = registry.counter("assessment.concurrency.dropped");
+        Gauge.builder("assessment.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(registry);
+        Gauge.builder("assessment.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || group(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Group group = group(request);
+        if (!limiter.tryAcquire(share(group))) {
+            rejected.get(group).increment();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            if (failed) {
+                dropped.increment();
+            }
+            limiter.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    // Mirrors the routes of AssessmentController, the WebSocket endpoint is long lived and not limited here
+    static Group group(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if ("POST".equals(method)) {
+            if ("/assessment/start".equals(path)) {
+                return Group.START;
+            }
+            if (path.startsWith("/assessment/") && (path.endsWith("/answer") || path.endsWith("/answers"))) {
+                return Group.ANSWER;
+            }
+        } else if ("GET".equals(method)) {
+            if ("/assessment/history".equals(path)
+                    || path.startsWith("/assessment/") && path.endsWith("/result")) {
+                return Group.READ;
+            }
+        }
+        return null;
+    }
+
+    private double share(Group group) {
+        return switch (group) {
+            case ANSWER -> properties.getAnswerShare();
+            case READ -> properties.getReadShare();
+            case START -> properties.getStartShare();
+        };
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", "Server is overloaded, please retry");
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
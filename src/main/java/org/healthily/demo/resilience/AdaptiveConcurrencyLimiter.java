@@ -0,0 +1,85 @@
+package org.healthily.demo.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient based concurrency limit. The limit grows while recent latency stays close to its long term average and
+ * shrinks in proportion once requests start queueing, so in-flight work tracks what the service can actually absorb.
+ * Callers are admitted up to a share of the limit, which lets lower priority work be rejected first.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DRIFT_RATIO = 2.0;
+    private static final double DRIFT_DECAY = 0.95;
+
+    private final ConcurrencyLimitProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * @param share fraction of the limit the caller's priority may fill
+     * @return whether the caller was admitted, in which case it must call {@link #release}
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightAtCompletion, dropped);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+            return;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / properties.getLongWindow();
+        }
+        // After a load drop the long term average lags far behind, let it catch up instead of pinning the limit
+        if (longRttNanos / rttNanos > DRIFT_RATIO) {
+            longRttNanos *= DRIFT_DECAY;
+        }
+
+        // Latency of a mostly idle service says nothing about how far the limit can go
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, properties.getRttTolerance() * longRttNanos / rttNanos));
+        double queueAllowance = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueAllowance;
+        newLimit = limit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    }
+}
@@ -0,0 +1,146 @@
+package org.healthily.demo.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker. Opens when the failure rate or the slow call rate over the last
+ * {@code windowSize} calls crosses its threshold, lets a few trial calls through once {@code openDuration}
+ * has passed and closes again when all of them succeed in time.
+ * <p>
+ * Every state change starts a new generation. Results are only counted for permits of the current generation, so a
+ * call let through while closed that finishes after the breaker opened neither reopens nor closes it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final CircuitBreakerProperties properties;
+    private final LongSupplier nanoClock;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int nextIndex;
+    private int recordedCalls;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(CircuitBreakerProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.slowCallNanos = properties.getSlowCallDuration().toNanos();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.failedCalls = new boolean[properties.getWindowSize()];
+        this.slowCalls = new boolean[properties.getWindowSize()];
+    }
+
+    /**
+     * @return the permit to report the result of the call with, {@code null} when the call is rejected
+     */
+    public synchronized Permit tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openNanos) {
+                return null;
+            }
+            transitionTo(State.HALF_OPEN);
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= properties.getHalfOpenCalls()) {
+                return null;
+            }
+            halfOpenPermits++;
+        }
+        return new Permit(generation);
+    }
+
+    public synchronized void onSuccess(Permit permit, long durationNanos) {
+        record(permit, false, durationNanos >= slowCallNanos);
+    }
+
+    public synchronized void onError(Permit permit, long durationNanos) {
+        record(permit, true, durationNanos >= slowCallNanos);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return how long until trial calls are let through again, zero unless the breaker is open
+     */
+    public synchronized long remainingOpenNanos() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openNanos - (nanoClock.getAsLong() - openedAt));
+    }
+
+    private void record(Permit permit, boolean failed, boolean slow) {
+        if (permit.generation() != generation) {
+            // Call was let through before the last state change
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            } else if (++halfOpenSuccesses >= properties.getHalfOpenCalls()) {
+                close();
+            }
+            return;
+        }
+        if (recordedCalls == failedCalls.length) {
+            failureCount -= failedCalls[nextIndex] ? 1 : 0;
+            slowCount -= slowCalls[nextIndex] ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+        failedCalls[nextIndex] = failed;
+        slowCalls[nextIndex] = slow;
+        failureCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        nextIndex = (nextIndex + 1) % failedCalls.length;
+
+        if (recordedCalls >= properties.getMinimumCalls()
+                && ((double) failureCount / recordedCalls >= properties.getFailureRateThreshold()
+                || (double) slowCount / recordedCalls >= properties.getSlowCallRateThreshold())) {
+            open();
+        }
+    }
+
+    private void open() {
+        transitionTo(State.OPEN);
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        transitionTo(State.CLOSED);
+        nextIndex = 0;
+        recordedCalls = 0;
+        failureCount = 0;
+        slowCount = 0;
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        generation++;
+    }
+
+    /**
+     * Ties a call to the generation it was let through in, trial calls are the permits of a half-open generation.
+     */
+    public record Permit(long generation) {
+    }
+}
@@ -0,0 +1,30 @@
+package org.healthily.demo.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Thresholds for the DynamoDB circuit breaker and the bulkhead that bounds concurrent DynamoDB calls.
+ */
+@Data
+@ConfigurationProperties(prefix = "dynamodb.circuit-breaker")
+public class CircuitBreakerProperties {
+
+    private boolean enabled = true;
+
+    // Outcomes of the last windowSize calls are used to compute failure and slow call rates
+    private int windowSize = 50;
+    private int minimumCalls = 20;
+    private double failureRateThreshold = 0.5;
+    private double slowCallRateThreshold = 0.8;
+    private Duration slowCallDuration = Duration.ofSeconds(1);
+
+    private Duration openDuration = Duration.ofSeconds(10);
+    private int halfOpenCalls = 5;
+
+    // Bulkhead: request threads wait at most maxWait for one of maxConcurrentCalls slots
+    private int maxConcurrentCalls = 64;
+    private Duration maxWait = Duration.ofMillis(50);
+}
@@ -0,0 +1,35 @@
+package org.healthily.demo.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the adaptive concurrency limit in front of the assessment endpoints.
+ */
+@Data
+@ConfigurationProperties(prefix = "assessment.concurrency")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+
+    // The limit only shrinks once recent latency exceeds the long term average by this factor
+    private double rttTolerance = 1.5;
+    // Number of samples the long term latency average effectively covers
+    private int longWindow = 600;
+    private double smoothing = 0.2;
+    // Applied to the limit whenever a request fails with a server error
+    private double backoffRatio = 0.9;
+
+    // Share of the limit each group may fill; lower priority groups are shed first as in-flight work grows
+    private double answerShare = 1.0;
+    private double readShare = 0.85;
+    private double startShare = 0.7;
+
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
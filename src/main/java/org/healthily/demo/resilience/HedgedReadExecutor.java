@@ -0,0 +1,206 @@
+package org.healthily.demo.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs idempotent reads with an optional hedge: if the first attempt has not answered within the recent
+ * latency percentile of that operation, an identical second attempt is sent and whichever succeeds first wins.
+ * The number of hedges is capped by a token budget that refills by {@code budgetRatio} per read.
+ */
+@Component
+public class HedgedReadExecutor {
+
+    private static final long TOKEN = 1_000;
+
+    private final HedgingProperties properties;
+    private final MeterRegistry registry;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final AtomicLong budget;
+    private final long budgetRefill;
+    private final long budgetMax;
+
+    public HedgedReadExecutor(HedgingProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        this.budgetRefill = Math.round(properties.getBudgetRatio() * TOKEN);
+        this.budgetMax = properties.getBudgetBurst() * TOKEN;
+        this.budget = new AtomicLong(budgetMax);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // No queue: when every thread is busy the read runs on the caller thread without a hedge
+        this.executor = new ThreadPoolExecutor(
+                properties.getThreads(), properties.getThreads(),
+                60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "hedged-read-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> T read(String operation, Supplier<T> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+
+        OperationStats stats = operations.computeIfAbsent(operation, OperationStats::new);
+        stats.requests.increment();
+        refillBudget();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pendingAttempts = new AtomicInteger(1);
+        try {
+            executor.execute(attempt(call, stats, result, pendingAttempts, false));
+        } catch (RejectedExecutionException e) {
+            stats.rejected.increment();
+            return timed(call, stats);
+        }
+
+        try {
+            return result.get(stats.hedgeDelayNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            hedge(call, stats, result, pendingAttempts);
+            return await(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + operation, e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> void hedge(Supplier<T> call, OperationStats stats, CompletableFuture<T> result,
+                           AtomicInteger pendingAttempts) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!tryAcquireBudget()) {
+            stats.budgetExhausted.increment();
+            return;
+        }
+        pendingAttempts.incrementAndGet();
+        try {
+            executor.execute(attempt(call, stats, result, pendingAttempts, true));
+            stats.hedges.increment();
+        } catch (RejectedExecutionException e) {
+            pendingAttempts.decrementAndGet();
+            stats.rejected.increment();
+        }
+    }
+
+    private <T> Runnable attempt(Supplier<T> call, OperationStats stats, CompletableFuture<T> result,
+                                 AtomicInteger pendingAttempts, boolean hedge) {
+        return () -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                T value = timed(call, stats);
+                if (result.complete(value) && hedge) {
+                    stats.wins.increment();
+                }
+            } catch (Throwable e) {
+                // Only fail the read once every attempt has failed
+                if (pendingAttempts.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+    }
+
+    private <T> T timed(Supplier<T> call, OperationStats stats) {
+        long start = System.nanoTime();
+        T value = call.get();
+        stats.latencies.record(System.nanoTime() - start);
+        return value;
+    }
+
+    private <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a hedged read", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private void refillBudget() {
+        budget.getAndUpdate(tokens -> Math.min(budgetMax, tokens + budgetRefill));
+    }
+
+    private boolean tryAcquireBudget() {
+        long tokens = budget.get();
+        while (tokens >= TOKEN) {
+            if (budget.compareAndSet(tokens, tokens - TOKEN)) {
+                return true;
+            }
+            tokens = budget.get();
+        }
+        return false;
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(e.getCause());
+    }
+
+    private final class OperationStats {
+        private final LatencyTracker latencies;
+        private final Counter requests;
+        private final Counter hedges;
+        private final Counter wins;
+        private final Counter budgetExhausted;
+        private final Counter rejected;
+
+        private OperationStats(String operation) {
+            this.latencies = new LatencyTracker(properties.getWindowSize(), properties.getPercentile());
+            this.requests = registry.counter("dynamodb.hedge.requests", "operation", operation);
+            this.hedges = registry.counter("dynamodb.hedge.sent", "operation", operation);
+            this.wins = registry.counter("dynamodb.hedge.wins", "operation", operation);
+            this.budgetExhausted = registry.counter("dynamodb.hedge.budget.exhausted", "operation", operation);
+            this.rejected = registry.counter("dynamodb.hedge.rejected", "operation", operation);
+            Gauge.builder("dynamodb.hedge.delay", this, s -> s.hedgeDelayNanos() / 1_000_000.0)
+                    .tag("operation", operation)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+        }
+
+        private long hedgeDelayNanos() {
+            long percentile = latencies.percentileNanos();
+            if (latencies.sampleCount() < properties.getMinSamples() || percentile < 0) {
+                return properties.getInitialDelay().toNanos();
+            }
+            return Math.max(properties.getMinDelay().toNanos(),
+                    Math.min(properties.getMaxDelay().toNanos(), percentile));
+        }
+    }
+}
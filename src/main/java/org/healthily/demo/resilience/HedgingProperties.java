@@ -0,0 +1,32 @@
+package org.healthily.demo.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for hedged DynamoDB reads. Hedging is opt-in, every hedge is an extra read against the table.
+ */
+@Data
+@ConfigurationProperties(prefix = "dynamodb.hedging")
+public class HedgingProperties {
+
+    private boolean enabled = false;
+
+    // A hedge is sent once a read has been outstanding for longer than this percentile of recent reads
+    private double percentile = 0.95;
+    private Duration minDelay = Duration.ofMillis(5);
+    private Duration maxDelay = Duration.ofMillis(200);
+
+    // Used until enough samples have been recorded for the percentile to mean something
+    private Duration initialDelay = Duration.ofMillis(50);
+    private int minSamples = 100;
+    private int windowSize = 1024;
+
+    // Hedges allowed per read, e.g. 0.05 caps the extra load at 5%
+    private double budgetRatio = 0.05;
+    private int budgetBurst = 10;
+
+    private int threads = 32;
+}
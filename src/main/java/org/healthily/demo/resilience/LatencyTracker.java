@@ -0,0 +1,58 @@
+package org.healthily.demo.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window of the most recent latencies with a cached percentile.
+ * The percentile is recomputed every few samples rather than on every read, so {@link #percentileNanos()}
+ * is a volatile read on the hot path.
+ */
+public class LatencyTracker {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private final double percentile;
+    private final int recomputeEvery;
+    private volatile long cachedPercentile = -1;
+
+    public LatencyTracker(int windowSize, double percentile) {
+        if (windowSize <= 0 || percentile <= 0 || percentile > 1) {
+            throw new IllegalArgumentException("Invalid latency window %d / percentile %s".formatted(windowSize, percentile));
+        }
+        this.samples = new AtomicLongArray(windowSize);
+        this.percentile = percentile;
+        this.recomputeEvery = Math.max(1, windowSize / 16);
+    }
+
+    public void record(long nanos) {
+        long sequence = count.getAndIncrement();
+        samples.set((int) (sequence % samples.length()), nanos);
+        if ((sequence + 1) % recomputeEvery == 0) {
+            recompute();
+        }
+    }
+
+    public long sampleCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the cached percentile in nanoseconds, or -1 if nothing has been computed yet
+     */
+    public long percentileNanos() {
+        return cachedPercentile;
+    }
+
+    private void recompute() {
+        int size = (int) Math.min(count.get(), samples.length());
+        long[] snapshot = new long[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        cachedPercentile = snapshot[Math.max(0, Math.min(index, size - 1))];
+    }
+}
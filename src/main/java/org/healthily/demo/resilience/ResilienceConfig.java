@@ -0,0 +1,26 @@
+package org.healthily.demo.resilience;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({HedgingProperties.class, CircuitBreakerProperties.class,
+        ConcurrencyLimitProperties.class})
+public class ResilienceConfig {
+
+    // Ahead of the security filter chain, so shed requests skip authentication entirely
+    @Bean
+    public FilterRegistrationBean<AdaptiveConcurrencyFilter> adaptiveConcurrencyFilter(
+            ConcurrencyLimitProperties properties, ObjectMapper objectMapper, MeterRegistry registry) {
+        FilterRegistrationBean<AdaptiveConcurrencyFilter> registration =
+                new FilterRegistrationBean<>(new AdaptiveConcurrencyFilter(properties, objectMapper, registry));
+        registration.addUrlPatterns("/assessment/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+}
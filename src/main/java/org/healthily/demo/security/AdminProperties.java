@@ -0,0 +1,17 @@
+package org.healthily.demo.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Users that get the {@code ADMIN} role, which opens the Actuator endpoints other than health and Prometheus.
+ */
+@Data
+@ConfigurationProperties(prefix = "auth.admin")
+public class AdminProperties {
+
+    // Ids rather than emails, so nobody can claim the role by registering an address before its owner does
+    private List<String> userIds = List.of();
+}
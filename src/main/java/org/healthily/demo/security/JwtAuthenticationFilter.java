@@ -1,5 +1,6 @@
 package org.healthily.demo.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,6 +11,8 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -19,6 +22,8 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
+    // Outlives the security filters, so filters running around them can still tell who the caller was
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -26,12 +31,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = request.getHeader("Authorization");
         if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-            if (jwtUtil.validateToken(token)) {
-                String username = jwtUtil.extractUsername(token);
-                UserDetails userDetails = User.withUsername(username).password("").roles("USER").build();
+            Claims claims = jwtUtil.verify(token.substring(7));
+            if (claims != null) {
+                String username = claims.getSubject();
+                String role = claims.get("role", String.class);
+                UserDetails userDetails = User.withUsername(username).password("")
+                        .roles(role == null ? "USER" : role).build();
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                // Logout needs the token id and expiry
+                authToken.setDetails(claims);
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                securityContextRepository.saveContext(SecurityContextHolder.getContext(), request, response);
             }
         }
         chain.doFilter(request, response);
@@ -0,0 +1,130 @@
+package org.healthily.demo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.exception.TooManyRequestsException;
+import org.healthily.demo.tracing.RequestTracer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt on a small dedicated pool with a bounded queue, so a login burst queues here instead of taking every
+ * request thread. When the queue is full, or a caller waited too long, the request fails fast with a 429.
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+    private final Counter timedOut;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, PasswordHashingProperties properties, MeterRegistry registry) {
+        this.passwordEncoder = passwordEncoder;
+        this.properties = properties;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                properties.getThreads(), properties.getThreads(),
+                0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = registry.timer("password.hashing.duration", "operation", "hash");
+        this.verifyTimer = registry.timer("password.hashing.duration", "operation", "verify");
+        this.rejected = registry.counter("password.hashing.rejected", "reason", "queue_full");
+        this.timedOut = registry.counter("password.hashing.rejected", "reason", "timeout");
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(registry);
+        Gauge.builder("password.hashing.queued", executor, pool -> pool.getQueue().size())
+                .register(registry);
+    }
+
+    public String hash(String rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return run(() -> timed(hashTimer, () -> passwordEncoder.encode(rawPassword)));
+        } finally {
+            // Traced on the request thread, so the span includes the time queued for the pool
+            RequestTracer.record("auth.bcrypt.hash", start);
+        }
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return run(() -> timed(verifyTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword)));
+        } finally {
+            RequestTracer.record("auth.bcrypt.verify", start);
+        }
+    }
+
+    public boolean needsUpgrade(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static <T> T timed(Timer timer, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many concurrent logins, please retry", 1);
+        }
+
+        try {
+            return future.get(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            timedOut.increment();
+            throw new TooManyRequestsException("Too many concurrent logins, please retry", 1);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
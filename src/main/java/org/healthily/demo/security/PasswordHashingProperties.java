@@ -0,0 +1,24 @@
+package org.healthily.demo.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the executor that runs BCrypt off the request threads.
+ */
+@Data
+@ConfigurationProperties(prefix = "auth.password-hashing")
+public class PasswordHashingProperties {
+
+    // Hashes cost ~CPU time each, so threads beyond the available cores only add queueing inside the OS
+    private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int queueCapacity = 64;
+
+    // Callers give up after this and get a 429, the task is dropped if it has not started yet
+    private Duration maxWait = Duration.ofSeconds(5);
+
+    // Stored hashes with a lower cost are re-hashed on the next successful login
+    private int bcryptStrength = 10;
+}
@@ -0,0 +1,155 @@
+package org.healthily.demo.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.repository.RevokedTokenRepository;
+import org.healthily.demo.repository.RevokedTokenRepository.Revocation;
+import org.healthily.demo.utils.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory mirror of the revoked tokens table, so checking a token costs no DynamoDB call. Token ids go through a
+ * Bloom filter first and only its rare positives are confirmed against the exact set. Revocations made on this node
+ * apply at once, those made on other nodes once the next refresh picked them up.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TokenRevocationProperties properties;
+    private final Duration userRevocationRetention;
+
+    // Token id to expiry, and user id to the epoch second up to which all of the user's tokens are revoked
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+    private int filterCapacity;
+    private volatile Instant watermark = Instant.EPOCH;
+    private volatile Instant lastSync;
+
+    private final Counter falsePositives;
+    private final Counter syncFailures;
+
+    // A user wide revocation has to outlive the refresh tokens it blocks, not just the access tokens
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               TokenRevocationProperties properties,
+                               @Value("${auth.refresh-token.ttl}") Duration userRevocationRetention,
+                               MeterRegistry registry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.properties = properties;
+        this.userRevocationRetention = userRevocationRetention;
+        this.filterCapacity = properties.getExpectedRevocations();
+        this.filter = new BloomFilter(filterCapacity, properties.getFalsePositiveRate());
+
+        this.falsePositives = registry.counter("auth.revocation.bloom.false_positives");
+        this.syncFailures = registry.counter("auth.revocation.sync.failures");
+        Gauge.builder("auth.revocation.tokens", revokedTokens, Map::size).register(registry);
+        Gauge.builder("auth.revocation.users", revokedBefore, Map::size).register(registry);
+        Gauge.builder("auth.revocation.sync.age", this, TokenRevocationList::secondsSinceSync)
+                .description("Seconds since the last successful refresh, -1 before the first one")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public boolean isRevoked(Claims claims) {
+        String tokenId = claims.getId();
+        if (tokenId != null && filter.mightContain(tokenId)) {
+            if (revokedTokens.containsKey(tokenId)) {
+                return true;
+            }
+            falsePositives.increment();
+        }
+        Instant issuedAt = claims.getIssuedAt() == null ? Instant.EPOCH : claims.getIssuedAt().toInstant();
+        return isRevoked(claims.getSubject(), issuedAt);
+    }
+
+    /**
+     * Whether a credential of the user issued at {@code issuedAt} was revoked by a logout from all devices.
+     */
+    public boolean isRevoked(String userId, Instant issuedAt) {
+        if (revokedBefore.isEmpty() || userId == null) {
+            return false;
+        }
+        Long before = revokedBefore.get(userId);
+        // Tokens carry second precision, so everything issued in the second of the logout is revoked too
+        return before != null && issuedAt.getEpochSecond() <= before;
+    }
+
+    public void revokeToken(Claims claims) {
+        Instant now = Instant.now();
+        Instant expiresAt = claims.getExpiration() == null ? now : claims.getExpiration().toInstant();
+        revokedTokenRepository.revokeToken(claims.getId(), claims.getSubject(), now, expiresAt);
+        apply(new Revocation(claims.getId(), claims.getSubject(), now, expiresAt));
+    }
+
+    public void revokeUser(String userId) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(userRevocationRetention);
+        revokedTokenRepository.revokeUser(userId, now, expiresAt);
+        apply(new Revocation(null, userId, now, expiresAt));
+    }
+
+    /**
+     * Pulls the revocations made since the last refresh and drops expired ones. Failures keep the current mirror.
+     */
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-interval}")
+    public void refresh() {
+        Instant now = Instant.now();
+        try {
+            for (Revocation revocation : revokedTokenRepository.findRevokedSince(
+                    watermark.minus(properties.getRefreshOverlap()), now)) {
+                apply(revocation);
+            }
+            lastSync = now;
+        } catch (RuntimeException e) {
+            syncFailures.increment();
+            log.warn("Failed to refresh revoked tokens: {}", e.getMessage());
+        }
+        prune(now);
+    }
+
+    private synchronized void apply(Revocation revocation) {
+        if (revocation.revokedAt().isAfter(watermark)) {
+            watermark = revocation.revokedAt();
+        }
+        if (revocation.tokenId() == null) {
+            revokedBefore.merge(revocation.userId(), revocation.revokedAt().getEpochSecond(), Math::max);
+            return;
+        }
+        if (revokedTokens.put(revocation.tokenId(), revocation.expiresAt()) == null) {
+            filter.put(revocation.tokenId());
+        }
+    }
+
+    // A Bloom filter cannot forget, so it is rebuilt once mostly expired ids or more ids than it was sized for are in it
+    private synchronized void prune(Instant now) {
+        revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        long cutoff = now.minus(userRevocationRetention).getEpochSecond();
+        revokedBefore.values().removeIf(before -> before < cutoff);
+
+        int live = revokedTokens.size();
+        int stale = filter.insertions() - live;
+        if (stale > Math.max(live, filterCapacity / 2) || live > filterCapacity) {
+            filterCapacity = Math.max(properties.getExpectedRevocations(), live * 2);
+            BloomFilter rebuilt = new BloomFilter(filterCapacity, properties.getFalsePositiveRate());
+            revokedTokens.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        }
+    }
+
+    private double secondsSinceSync() {
+        Instant synced = lastSync;
+        return synced == null ? -1 : Duration.between(synced, Instant.now()).toSeconds();
+    }
+}
@@ -0,0 +1,23 @@
+package org.healthily.demo.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the in-memory mirror of the revoked tokens table.
+ */
+@Data
+@ConfigurationProperties(prefix = "auth.revocation")
+public class TokenRevocationProperties {
+
+    // How long a revocation made on another node can take to be enforced here
+    private Duration refreshInterval = Duration.ofSeconds(5);
+
+    // Each refresh re-reads this far behind the newest revocation seen, to cover clock skew between nodes
+    private Duration refreshOverlap = Duration.ofSeconds(30);
+
+    private int expectedRevocations = 100_000;
+    private double falsePositiveRate = 0.01;
+}
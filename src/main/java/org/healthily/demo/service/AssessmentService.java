@@ -1,206 +1,336 @@
 package org.healthily.demo.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.config.CacheConfig;
+import org.healthily.demo.exception.BackendUnavailableException;
 import org.healthily.demo.exception.BadRequestException;
-import org.healthily.demo.model.DiagnosticDecision;
-import org.healthily.demo.model.DiagnosticStatus;
+import org.healthily.demo.model.AssessmentState;
 import org.healthily.demo.model.dto.AnswerQuestionRequest;
+import org.healthily.demo.model.dto.AnswerQuestionsRequest;
+import org.healthily.demo.model.dto.AssessmentHistoryResponse;
 import org.healthily.demo.model.dto.AssessmentResponse;
 import org.healthily.demo.model.dto.AssessmentResultResponse;
+import org.healthily.demo.model.dto.AssessmentSummary;
 import org.healthily.demo.model.dto.StartAssessmentRequest;
+import org.healthily.demo.repository.AssessmentArchiveRepository;
 import org.healthily.demo.repository.AssessmentRepository;
-import org.healthily.demo.repository.HealthDataRepository;
-import org.healthily.demo.utils.DiagnosticUtils;
+import org.healthily.demo.tracing.AssessmentEvent;
+import org.healthily.demo.tracing.RequestTracer;
+import org.healthily.demo.utils.HistoryCursor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import org.springframework.util.DigestUtils;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AssessmentService {
 
-    private final HealthDataRepository healthDataRepository;
-    private final AssessmentRepository assessmentRepository;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
 
+    private final DiagnosticEngine engine;
+    private final AssessmentRepository assessmentRepository;
+    private final AssessmentArchiveRepository assessmentArchiveRepository;
+    private final MeterRegistry registry;
+
+    /**
+     * With an idempotency key the assessment id is derived from the user and the key, so a retry that misses the
+     * local response cache reads the first assessment back instead of running the engine again. Two first attempts
+     * racing each other are still settled by the conditional put.
+     */
     @PreAuthorize("#request.userId == authentication.principal.username")
-    public AssessmentResponse startAssessment(StartAssessmentRequest request) {
-        List<Map<String, AttributeValue>> conditions = healthDataRepository.getAllConditions();
-        List<Map<String, AttributeValue>> allSymptoms = healthDataRepository.getAllSymptoms();
-
-        List<Map<String, AttributeValue>> initialSymptomData = allSymptoms.stream()
-                .filter(symptom -> {
-                    String symptomId = symptom.get("id").s().replace("SYMPTOM#", "");
-                    return request.getInitialSymptoms().contains(symptomId);
-                })
-                .toList();
+    @Cacheable(value = CacheConfig.IDEMPOTENT_RESPONSES_CACHE, key = "'start:' + #request.userId + ':' + #idempotencyKey",
+            condition = "#idempotencyKey != null", sync = true)
+    public AssessmentResponse startAssessment(StartAssessmentRequest request, String idempotencyKey) {
+        return recorded("start", null, request.getInitialSymptoms().size(),
+                () -> start(request, idempotencyKey));
+    }
 
-        Map<String, BigDecimal> conditionProbabilities = DiagnosticUtils.calculateInitialProbabilities(
-                conditions,
-                initialSymptomData
-        );
+    private AssessmentResponse start(StartAssessmentRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            AssessmentState assessment = newAssessment(request.getUserId(), request.getInitialSymptoms());
+            assessmentRepository.saveAssessment(assessment);
+            return createAssessmentResponse(assessment);
+        }
 
-        log.info("Initial probabilities: {}", conditionProbabilities);
+        String assessmentId = UUID.nameUUIDFromBytes(
+                ("start:" + request.getUserId() + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8)).toString();
+        AssessmentState existing = assessmentRepository.getAssessment(assessmentId);
+        if (existing != null) {
+            log.info("Replaying start of assessment {} for a repeated idempotency key", assessmentId);
+            return createAssessmentResponse(existing);
+        }
 
-        DiagnosticDecision decision = DiagnosticUtils.evaluateNextStep(
-                conditionProbabilities,
-                request.getInitialSymptoms(),
-                List.of(),
-                allSymptoms
-        );
+        AssessmentState assessment = newAssessment(assessmentId, request.getUserId(), request.getInitialSymptoms());
+        existing = assessmentRepository.createAssessment(assessment);
+        if (existing != null) {
+            log.info("Replaying start of assessment {} for a repeated idempotency key", assessmentId);
+            return createAssessmentResponse(existing);
+        }
 
-        String assessmentId = UUID.randomUUID().toString();
-        Map<String, AttributeValue> item = createAssessmentItem(request, decision);
-        assessmentRepository.saveAssessment(assessmentId, item);
+        return createAssessmentResponse(assessment);
+    }
 
-        return createAssessmentResponse(assessmentId, decision, request.getUserId());
+    @PostAuthorize("returnObject.userId == authentication.principal.username")
+    @Cacheable(value = CacheConfig.IDEMPOTENT_RESPONSES_CACHE, key = "'answer:' + #assessmentId + ':' + #idempotencyKey",
+            condition = "#idempotencyKey != null", sync = true)
+    public AssessmentResponse answerQuestion(String assessmentId, AnswerQuestionRequest request, String idempotencyKey) {
+        return applyAnswers(assessmentId, List.of(request), idempotencyKey);
     }
 
+    /**
+     * Applies the answers in order against a single read of the assessment and persists once.
+     * Answers left over once a diagnosis is reached are ignored.
+     */
     @PostAuthorize("returnObject.userId == authentication.principal.username")
-    public AssessmentResponse answerQuestion(String assessmentId, AnswerQuestionRequest request) {
-        Map<String, AttributeValue> assessment = assessmentRepository.getAssessment(assessmentId);
-        if (assessment == null || assessment.isEmpty()) {
+    @Cacheable(value = CacheConfig.IDEMPOTENT_RESPONSES_CACHE, key = "'answers:' + #assessmentId + ':' + #idempotencyKey",
+            condition = "#idempotencyKey != null", sync = true)
+    public AssessmentResponse answerQuestions(String assessmentId, AnswerQuestionsRequest request, String idempotencyKey) {
+        return applyAnswers(assessmentId, request.getAnswers(), idempotencyKey);
+    }
+
+    /**
+     * Runs the initial evaluation without persisting. Used directly by the WebSocket session mode, which keeps the
+     * assessment in memory and is responsible for ownership checks and for calling {@link #checkpoint}.
+     */
+    public AssessmentState newAssessment(String userId, List<String> initialSymptoms) {
+        return newAssessment(UUID.randomUUID().toString(), userId, initialSymptoms);
+    }
+
+    private AssessmentState newAssessment(String assessmentId, String userId, List<String> initialSymptoms) {
+        AssessmentState assessment = engine.start(assessmentId, userId, initialSymptoms, this::recordStep);
+        log.info("Initial probabilities: {}", assessment.getProbabilities());
+        registry.counter("assessment.started").increment();
+        return countOutcome(assessment);
+    }
+
+    /**
+     * Loads an assessment for the WebSocket session mode, which has no method security around it.
+     */
+    public AssessmentState loadAssessment(String assessmentId, String userId) {
+        AssessmentState assessment = assessmentRepository.getAssessment(assessmentId);
+        if (assessment == null || !userId.equals(assessment.getUserId())) {
             throw new BadRequestException("Assessment not found");
         }
+        return assessment;
+    }
+
+    /**
+     * Applies answers in memory without persisting.
+     */
+    public AssessmentState advance(AssessmentState assessment, List<AnswerQuestionRequest> answers) {
+        AssessmentState advanced = engine.advance(assessment, answers, this::recordStep);
+        log.info("Updated probabilities: {}", advanced.getProbabilities());
+        registry.counter("assessment.questions.asked")
+                .increment(advanced.getAskedQuestions().size() - assessment.getAskedQuestions().size());
+        return countOutcome(advanced);
+    }
 
-        // Check next question id matches
-        if (!request.getQuestionId().equals(assessment.get("next_question_id").s())) {
-            throw new BadRequestException("Invalid next question id: %s, should be: %s".formatted(request.getQuestionId(), assessment.get("next_question_id").s()));
+    // Counted when the engine reaches a diagnosis, a request that then loses a concurrent write is still counted
+    private AssessmentState countOutcome(AssessmentState assessment) {
+        if (assessment.isCompleted()) {
+            registry.counter("assessment.outcomes", "diagnosis",
+                    assessment.getDiagnosis() == null ? "none" : assessment.getDiagnosis()).increment();
         }
+        return assessment;
+    }
 
-        Map<String, AttributeValue> symptom = healthDataRepository.getSymptom(request.getQuestionId());
-        if (symptom == null || symptom.isEmpty()) {
-            throw new BadRequestException("Symptom not found");
+    // Wraps an operation in a JFR event, committed with the failed outcome when the operation throws
+    private AssessmentResponse recorded(String operation, String assessmentId, int questionCount,
+                                        Supplier<AssessmentResponse> body) {
+        AssessmentEvent event = AssessmentEvent.start(operation, questionCount);
+        AssessmentResponse response = null;
+        try {
+            response = body.get();
+            return response;
+        } finally {
+            if (response == null) {
+                event.finish(assessmentId, "failed");
+            } else {
+                event.finish(response.getAssessmentId(), response.getNextQuestionId() == null ? "completed" : "ongoing");
+            }
         }
+    }
 
-        Map<String, BigDecimal> currentProbabilities = new HashMap<>();
-        assessment.get("probabilities").m().forEach((key, value) ->
-                currentProbabilities.put(key, new BigDecimal(value.n()))
-        );
+    private void recordStep(String step, long startNanos, long durationNanos) {
+        registry.timer("assessment.engine", "step", step).record(durationNanos, TimeUnit.NANOSECONDS);
+        RequestTracer.record("engine." + step, startNanos, durationNanos);
+    }
 
-        Map<String, BigDecimal> updatedProbabilities = DiagnosticUtils.updateProbabilities(
-                currentProbabilities,
-                symptom.get("conditions").m(),
-                request.getResponse().toBooleanValue()
-        );
+    /**
+     * Persists an assessment advanced in memory. {@code persisted} is the state last read or written, {@code null} for
+     * an assessment that was never stored. The write only goes through while the stored next question is still the
+     * one of {@code persisted}, so an answer given concurrently through the REST API is never overwritten.
+     */
+    public void checkpoint(AssessmentState assessment, AssessmentState persisted) {
+        AssessmentState current = persisted == null
+                ? assessmentRepository.createAssessment(assessment)
+                : assessmentRepository.updateAssessment(assessment, persisted.getNextQuestionId());
+        if (current != null) {
+            throw new BadRequestException("Assessment %s was updated by another request, please resume it"
+                    .formatted(assessment.getId()));
+        }
+        archiveIfCompleted(assessment);
+    }
 
-        log.info("Updated probabilities: {}", updatedProbabilities);
+    private AssessmentResponse applyAnswers(String assessmentId, List<AnswerQuestionRequest> answers, String idempotencyKey) {
+        return recorded("answer", assessmentId, answers.size(), () -> apply(assessmentId, answers, idempotencyKey));
+    }
 
-        Map<String, AttributeValue> askedQuestions = new HashMap<>();
-        if (assessment.containsKey("asked_questions")) {
-            askedQuestions.putAll(assessment.get("asked_questions").m());
+    private AssessmentResponse apply(String assessmentId, List<AnswerQuestionRequest> answers, String idempotencyKey) {
+        AssessmentState assessment = assessmentRepository.getAssessment(assessmentId);
+        if (assessment == null) {
+            throw new BadRequestException("Assessment not found");
         }
-        askedQuestions.put(request.getQuestionId(),
-                AttributeValue.builder().s(request.getResponse().toString().toLowerCase()).build());
 
-        List<String> allQuestions = Stream.concat(
-                assessment.get("initial_symptoms").ss().stream(),
-                askedQuestions.keySet().stream()
-        ).toList();
+        // The stored item already reflects the answer this key carried, so the response can be rebuilt from it
+        if (isLastIdempotencyKey(assessment, idempotencyKey) || isAlreadyApplied(assessment, answers, idempotencyKey)) {
+            log.info("Replaying answer to assessment {} for a repeated idempotency key", assessmentId);
+            return createAssessmentResponse(assessment);
+        }
 
-        DiagnosticDecision decision = DiagnosticUtils.evaluateNextStep(
-                updatedProbabilities,
-                allQuestions,
-                askedQuestions.keySet().stream().toList(),
-                healthDataRepository.getAllSymptoms()
-        );
+        AssessmentState updated = advance(assessment, answers).toBuilder()
+                .lastIdempotencyKey(idempotencyKey)
+                .build();
 
-        Map<String, AttributeValue> updateItem = createUpdatedAssessmentItem(assessment, decision, askedQuestions);
-        assessmentRepository.updateAssessment(updateItem);
+        AssessmentState current = assessmentRepository.updateAssessment(updated, assessment.getNextQuestionId());
+        if (current != null) {
+            if (isLastIdempotencyKey(current, idempotencyKey) || isAlreadyApplied(current, answers, idempotencyKey)) {
+                return createAssessmentResponse(current);
+            }
+            throw new BadRequestException("Assessment %s was updated by another request, please retry".formatted(assessmentId));
+        }
+        archiveIfCompleted(updated);
 
-        return createAssessmentResponse(assessmentId, decision, assessment.get("user_id").s());
+        return createAssessmentResponse(updated);
     }
 
-    @PostAuthorize("returnObject.userId == authentication.principal.username")
-    public AssessmentResultResponse getAssessmentResult(String assessmentId) {
-        Map<String, AttributeValue> assessment = assessmentRepository.getAssessment(assessmentId);
-        if (assessment == null) {
-            throw new BadRequestException("Assessment not found");
+    // Runs after the hot write succeeded, so only the winner of a concurrent completion is archived. The hot item only
+    // starts to expire once the archive copy exists, a failed archive leaves it in the hot table for good.
+    private void archiveIfCompleted(AssessmentState assessment) {
+        if (!assessment.isCompleted()) {
+            return;
         }
-
-        if ("ongoing".equals(assessment.get("status").s())) {
-            throw new BadRequestException("Assessment %s is still ongoing, please answer the remaining questions first".formatted(assessmentId));
+        try {
+            assessmentArchiveRepository.archive(assessment);
+        } catch (BackendUnavailableException e) {
+            log.error("Failed to archive assessment {}, it stays in the hot table without expiry", assessment.getId(), e);
+            return;
         }
+        try {
+            assessmentRepository.expireAfterArchive(assessment.getId());
+        } catch (BackendUnavailableException e) {
+            log.warn("Failed to start the hot retention of archived assessment {}", assessment.getId(), e);
+        }
+    }
+
+    private static boolean isLastIdempotencyKey(AssessmentState assessment, String idempotencyKey) {
+        return idempotencyKey != null && idempotencyKey.equals(assessment.getLastIdempotencyKey());
+    }
+
+    // A retry that arrives after a newer answer no longer matches the last key, but its answers are all recorded
+    private static boolean isAlreadyApplied(AssessmentState assessment, List<AnswerQuestionRequest> answers,
+                                            String idempotencyKey) {
+        return idempotencyKey != null && !answers.isEmpty() && answers.stream()
+                .allMatch(answer -> answer.getResponse() == assessment.getAskedQuestions().get(answer.getQuestionId()));
+    }
 
-        Map<String, BigDecimal> rawProbabilities = new HashMap<>();
-        assessment.get("probabilities").m().forEach((key, value) ->
-                rawProbabilities.put(key, new BigDecimal(value.n()).multiply(BigDecimal.valueOf(100L))));
+    /**
+     * Only completed results reach the cache, ongoing assessments throw. The authorization check runs around the
+     * cache, so cached results are still only returned to their owner.
+     */
+    @PostAuthorize("returnObject.userId == authentication.principal.username")
+    @Cacheable(value = CacheConfig.ASSESSMENT_RESULTS_CACHE, key = "#assessmentId")
+    public AssessmentResultResponse getAssessmentResult(String assessmentId) {
+        AssessmentEvent event = AssessmentEvent.start("result", 0);
+        String outcome = "failed";
+        try {
+            AssessmentState assessment = assessmentRepository.getAssessmentResult(assessmentId);
+            if (assessment == null) {
+                // Expired from the hot table
+                assessment = assessmentArchiveRepository.getArchivedResult(assessmentId);
+            }
+            if (assessment == null) {
+                throw new BadRequestException("Assessment not found");
+            }
+
+            if (!assessment.isCompleted()) {
+                throw new BadRequestException("Assessment %s is still ongoing, please answer the remaining questions first".formatted(assessmentId));
+            }
+
+            AssessmentResultResponse result = buildResult(assessmentId, assessment);
+            outcome = "completed";
+            return result;
+        } finally {
+            event.finish(assessmentId, outcome);
+        }
+    }
 
-        Map<String, String> formattedProbabilities = rawProbabilities.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        e -> String.format("%.1f%%", e.getValue())
-                ));
+    public AssessmentResultResponse buildResult(String assessmentId, AssessmentState assessment) {
+        Map<String, String> formattedProbabilities = new TreeMap<>();
+        assessment.getProbabilities().forEach((condition, probability) ->
+                formattedProbabilities.put(condition, String.format("%.1f%%",
+                        probability.multiply(BigDecimal.valueOf(100L)))));
 
+        String diagnosis = assessment.getDiagnosis();
         return AssessmentResultResponse.builder()
-                .condition(assessment.get("diagnosis").s())
+                .condition(diagnosis)
                 .probabilities(formattedProbabilities)
-                .userId(assessment.get("user_id").s())
+                .userId(assessment.getUserId())
+                .etag(resultEtag(assessmentId, diagnosis, formattedProbabilities))
                 .build();
     }
 
-    private Map<String, AttributeValue> createAssessmentItem(StartAssessmentRequest request, DiagnosticDecision decision) {
-        Map<String, AttributeValue> item = new HashMap<>();
-        item.put("user_id", AttributeValue.builder().s(request.getUserId()).build());
-        item.put("initial_symptoms", AttributeValue.builder().ss(request.getInitialSymptoms()).build());
-        item.put("status", AttributeValue.builder().s(
-                decision.getStatus() == DiagnosticStatus.DIAGNOSIS_READY ? "completed" : "ongoing"
-        ).build());
-
-        Map<String, AttributeValue> probabilitiesMap = new HashMap<>();
-        decision.getCurrentProbabilities().forEach((k, v) ->
-                probabilitiesMap.put(k, AttributeValue.builder().n(String.valueOf(v)).build())
-        );
-        item.put("probabilities", AttributeValue.builder().m(probabilitiesMap).build());
-
-        if (decision.getStatus() == DiagnosticStatus.NEEDS_MORE_INFO) {
-            item.put("next_question_id", AttributeValue.builder().s(decision.getNextQuestion()).build());
-        } else {
-            item.put("diagnosis", AttributeValue.builder().s(decision.getDiagnosis()).build());
-        }
-
-        return item;
-    }
+    @PreAuthorize("#userId == authentication.principal.username")
+    public AssessmentHistoryResponse getAssessmentHistory(String userId, int limit, String cursor) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        AssessmentRepository.HistoryPage page = assessmentRepository.findByUserId(
+                userId, pageSize, HistoryCursor.decode(cursor, userId));
 
-    private Map<String, AttributeValue> createUpdatedAssessmentItem(
-            Map<String, AttributeValue> assessment,
-            DiagnosticDecision decision,
-            Map<String, AttributeValue> askedQuestions) {
-        Map<String, AttributeValue> updateItem = new HashMap<>(assessment);
+        List<AssessmentSummary> summaries = page.items().stream()
+                .map(this::toSummary)
+                .toList();
 
-        Map<String, AttributeValue> probabilitiesMap = new HashMap<>();
-        decision.getCurrentProbabilities().forEach((k, v) ->
-                probabilitiesMap.put(k, AttributeValue.builder().n(String.valueOf(v)).build())
-        );
-        updateItem.put("probabilities", AttributeValue.builder().m(probabilitiesMap).build());
-        updateItem.put("asked_questions", AttributeValue.builder().m(askedQuestions).build());
+        return AssessmentHistoryResponse.builder()
+                .assessments(summaries)
+                .nextCursor(HistoryCursor.encode(page.lastEvaluatedKey()))
+                .build();
+    }
 
-        if (decision.getStatus() == DiagnosticStatus.DIAGNOSIS_READY) {
-            updateItem.put("status", AttributeValue.builder().s("completed").build());
-            updateItem.put("diagnosis", AttributeValue.builder().s(decision.getDiagnosis()).build());
-            updateItem.remove("next_question_id");
-        } else {
-            updateItem.put("next_question_id", AttributeValue.builder().s(decision.getNextQuestion()).build());
-        }
+    private static String resultEtag(String assessmentId, String diagnosis, Map<String, String> probabilities) {
+        String content = assessmentId + diagnosis + probabilities;
+        return "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
 
-        return updateItem;
+    private AssessmentSummary toSummary(AssessmentState assessment) {
+        return AssessmentSummary.builder()
+                .assessmentId(assessment.getId())
+                .status(assessment.getStatus().value())
+                .diagnosis(assessment.getDiagnosis())
+                .initialSymptoms(assessment.getInitialSymptoms())
+                .createdAt(Instant.ofEpochMilli(assessment.getCreatedAt()))
+                .build();
     }
 
-    private AssessmentResponse createAssessmentResponse(String assessmentId, DiagnosticDecision decision, String userId) {
+    private AssessmentResponse createAssessmentResponse(AssessmentState assessment) {
         return AssessmentResponse.builder()
-                .assessmentId(assessmentId)
-                .nextQuestionId(decision.getNextQuestion())
-                .userId(userId)
+                .assessmentId(assessment.getId())
+                .nextQuestionId(assessment.getNextQuestionId())
+                .userId(assessment.getUserId())
                 .build();
     }
-} 
\ No newline at end of file
+}
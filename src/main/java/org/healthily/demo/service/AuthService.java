@@ -1,30 +1,39 @@
 package org.healthily.demo.service;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.healthily.demo.exception.BadRequestException;
 import org.healthily.demo.model.dto.LoginRequest;
 import org.healthily.demo.model.dto.LoginResponse;
+import org.healthily.demo.model.dto.RefreshRequest;
 import org.healthily.demo.model.dto.RegisterRequest;
 import org.healthily.demo.model.dto.RegisterResponse;
 import org.healthily.demo.repository.UserRepository;
+import org.healthily.demo.security.AdminProperties;
+import org.healthily.demo.security.PasswordHasher;
+import org.healthily.demo.security.TokenRevocationList;
 import org.healthily.demo.security.User;
 import org.healthily.demo.utils.JwtUtil;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
+    private static final String ADMIN_ROLE = "ADMIN";
+
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList revocationList;
+    private final AdminProperties adminProperties;
 
     public RegisterResponse register(RegisterRequest request) {
-        User user = userRepository.findByEmail(request.getEmail());
-        if (user != null) {
+        if (!userRepository.createUser(request, passwordHasher.hash(request.getPassword()))) {
             throw new BadRequestException("User already exists");
         }
-        userRepository.createUser(request);
         return RegisterResponse.builder()
                 .message("User successfully created")
                 .build();
@@ -32,11 +41,61 @@ public class AuthService {
 
     public LoginResponse login(LoginRequest loginRequest) {
         User user = userRepository.findByEmail(loginRequest.getEmail());
-        if (user == null || !passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+        if (user == null || !passwordHasher.matches(loginRequest.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid credentials");
         }
+        upgradePasswordHash(user, loginRequest.getPassword());
+        return LoginResponse.builder().accessToken(jwtUtil.generateToken(principal(user.getId(), user.getEntityType())))
+                .refreshToken(refreshTokenService.issue(user.getId(), user.getEntityType()))
+                .userId(user.getId())
+                .build();
+    }
+
+    // The plain password is only available at login, so that is when hashes created with an older cost get replaced
+    private void upgradePasswordHash(User user, String rawPassword) {
+        if (!passwordHasher.needsUpgrade(user.getPassword())) {
+            return;
+        }
+        try {
+            userRepository.updatePasswordHash(user.getId(), user.getPassword(), passwordHasher.hash(rawPassword));
+        } catch (RuntimeException e) {
+            // The login itself succeeded, the upgrade is retried on the next one
+            log.warn("Failed to upgrade password hash of user {}", user.getId(), e);
+        }
+    }
+
+    /**
+     * Renews a session with one conditional update and an HMAC signature, no password hashing involved.
+     */
+    public LoginResponse refresh(RefreshRequest request) {
+        RefreshTokenService.Renewal renewal = refreshTokenService.rotate(request.getRefreshToken());
+        User user = principal(renewal.userId(), renewal.role());
         return LoginResponse.builder().accessToken(jwtUtil.generateToken(user))
+                .refreshToken(renewal.refreshToken())
                 .userId(user.getId())
                 .build();
     }
+
+    // Refresh tokens keep the stored role, the admin role is granted each time an access token is issued, so taking
+    // an id out of auth.admin.user-ids takes effect at that user's next refresh
+    private User principal(String userId, String role) {
+        return User.builder()
+                .id(userId)
+                .entityType(adminProperties.getUserIds().contains(userId) ? ADMIN_ROLE : role)
+                .build();
+    }
+
+    public void logout(Claims claims, String refreshToken) {
+        if (claims.getId() == null) {
+            throw new BadRequestException("Token cannot be revoked");
+        }
+        revocationList.revokeToken(claims);
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revoke(refreshToken);
+        }
+    }
+
+    public void logoutAll(String userId) {
+        revocationList.revokeUser(userId);
+    }
 } 
\ No newline at end of file
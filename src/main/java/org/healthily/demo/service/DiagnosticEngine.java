@@ -0,0 +1,161 @@
+package org.healthily.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.exception.BadRequestException;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.AssessmentStatus;
+import org.healthily.demo.model.DiagnosticDecision;
+import org.healthily.demo.model.DiagnosticStatus;
+import org.healthily.demo.model.ResponseType;
+import org.healthily.demo.model.dto.AnswerQuestionRequest;
+import org.healthily.demo.repository.HealthDataRepository;
+import org.healthily.demo.utils.DiagnosticUtils;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The diagnostic engine on top of the catalog: evaluates initial symptoms and applies answers to an assessment held
+ * in memory. Neither persists nor counts anything, {@link AssessmentService} does both around it and the warm-up
+ * runs it on synthetic assessments.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DiagnosticEngine {
+
+    private final HealthDataRepository healthDataRepository;
+
+    /**
+     * Receives the duration of every engine step, e.g. {@code initial_probabilities} or {@code next_step}.
+     */
+    @FunctionalInterface
+    public interface StepListener {
+
+        StepListener NONE = (step, startNanos, durationNanos) -> {
+        };
+
+        void onStep(String step, long startNanos, long durationNanos);
+    }
+
+    public AssessmentState start(String assessmentId, String userId, List<String> initialSymptoms,
+                                 StepListener listener) {
+        List<Map<String, AttributeValue>> conditions = healthDataRepository.getAllConditions();
+        List<Map<String, AttributeValue>> allSymptoms = healthDataRepository.getAllSymptoms();
+
+        List<Map<String, AttributeValue>> initialSymptomData = allSymptoms.stream()
+                .filter(symptom -> {
+                    String symptomId = symptom.get("id").s().replace("SYMPTOM#", "");
+                    return initialSymptoms.contains(symptomId);
+                })
+                .toList();
+
+        Map<String, BigDecimal> conditionProbabilities = timed("initial_probabilities", listener,
+                () -> DiagnosticUtils.calculateInitialProbabilities(conditions, initialSymptomData));
+
+        DiagnosticDecision decision = timed("next_step", listener, () -> DiagnosticUtils.evaluateNextStep(
+                conditionProbabilities,
+                initialSymptoms,
+                List.of(),
+                allSymptoms
+        ));
+
+        AssessmentState.AssessmentStateBuilder assessment = AssessmentState.builder()
+                .id(assessmentId)
+                .userId(userId)
+                .createdAt(System.currentTimeMillis())
+                .initialSymptoms(List.copyOf(initialSymptoms));
+        return applyDecision(assessment, decision).build();
+    }
+
+    /**
+     * Applies the answers in order. Answers left over once a diagnosis is reached are ignored.
+     */
+    public AssessmentState advance(AssessmentState assessment, List<AnswerQuestionRequest> answers,
+                                   StepListener listener) {
+        if (assessment.isCompleted()) {
+            throw new BadRequestException("Assessment %s is already completed".formatted(assessment.getId()));
+        }
+
+        Map<String, BigDecimal> probabilities = assessment.getProbabilities();
+        Map<String, ResponseType> askedQuestions = new HashMap<>(assessment.getAskedQuestions());
+
+        String expectedQuestionId = assessment.getNextQuestionId();
+        DiagnosticDecision decision = null;
+        for (AnswerQuestionRequest answer : answers) {
+            if (expectedQuestionId == null) {
+                log.info("Diagnosis reached for {}, ignoring remaining answers", assessment.getId());
+                break;
+            }
+
+            // Check next question id matches
+            if (!expectedQuestionId.equals(answer.getQuestionId())) {
+                throw new BadRequestException("Invalid next question id: %s, should be: %s".formatted(answer.getQuestionId(), expectedQuestionId));
+            }
+
+            Map<String, AttributeValue> symptom = healthDataRepository.getSymptom(answer.getQuestionId());
+            if (symptom == null || symptom.isEmpty()) {
+                throw new BadRequestException("Symptom not found");
+            }
+
+            Map<String, BigDecimal> priorProbabilities = probabilities;
+            probabilities = timed("update_probabilities", listener, () -> DiagnosticUtils.updateProbabilities(
+                    priorProbabilities,
+                    symptom.get("conditions").m(),
+                    answer.getResponse().toBooleanValue()
+            ));
+
+            askedQuestions.put(answer.getQuestionId(), answer.getResponse());
+
+            List<String> allQuestions = Stream.concat(
+                    assessment.getInitialSymptoms().stream(),
+                    askedQuestions.keySet().stream()
+            ).toList();
+
+            Map<String, BigDecimal> posteriorProbabilities = probabilities;
+            List<String> answeredQuestions = askedQuestions.keySet().stream().toList();
+            List<Map<String, AttributeValue>> allSymptoms = healthDataRepository.getAllSymptoms();
+            decision = timed("next_step", listener, () -> DiagnosticUtils.evaluateNextStep(
+                    posteriorProbabilities,
+                    allQuestions,
+                    answeredQuestions,
+                    allSymptoms
+            ));
+            expectedQuestionId = decision.getNextQuestion();
+        }
+
+        if (decision == null) {
+            throw new BadRequestException("At least one answer is required");
+        }
+
+        return applyDecision(assessment.toBuilder().askedQuestions(Map.copyOf(askedQuestions)), decision).build();
+    }
+
+    private static <T> T timed(String step, StepListener listener, Supplier<T> computation) {
+        long start = System.nanoTime();
+        try {
+            return computation.get();
+        } finally {
+            listener.onStep(step, start, System.nanoTime() - start);
+        }
+    }
+
+    private static AssessmentState.AssessmentStateBuilder applyDecision(AssessmentState.AssessmentStateBuilder assessment,
+                                                                        DiagnosticDecision decision) {
+        assessment.probabilities(Map.copyOf(decision.getCurrentProbabilities()));
+        if (decision.getStatus() == DiagnosticStatus.DIAGNOSIS_READY) {
+            return assessment.status(AssessmentStatus.COMPLETED)
+                    .diagnosis(decision.getDiagnosis())
+                    .nextQuestionId(null);
+        }
+        return assessment.status(AssessmentStatus.ONGOING)
+                .nextQuestionId(decision.getNextQuestion());
+    }
+}
@@ -0,0 +1,97 @@
+package org.healthily.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.exception.UnauthorizedException;
+import org.healthily.demo.repository.RefreshTokenRepository;
+import org.healthily.demo.security.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Issues and rotates opaque refresh tokens. Every refresh consumes the presented token and hands out a new one.
+ * Presenting a token that was already rotated means it leaked, so its whole chain of successors is revoked.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int MAX_REVOKED_CHAIN = 1_000;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationList revocationList;
+
+    @Value("${auth.refresh-token.ttl}")
+    private Duration ttl;
+
+    public String issue(String userId, String role) {
+        String token = newToken();
+        Instant now = Instant.now();
+        refreshTokenRepository.save(hash(token), userId, role, now, now.plus(ttl));
+        return token;
+    }
+
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.revoke(hash(refreshToken), Instant.now());
+    }
+
+    /**
+     * @return the rotated token's owner and role along with its successor
+     */
+    public Renewal rotate(String refreshToken) {
+        Instant now = Instant.now();
+        String successor = newToken();
+        RefreshTokenRepository.Rotation rotation =
+                refreshTokenRepository.rotate(hash(refreshToken), hash(successor), now, now.plus(ttl));
+
+        RefreshTokenRepository.RefreshToken token = rotation.token();
+        if (!rotation.rotated()) {
+            if (token != null && token.used() && !token.revoked()) {
+                log.warn("Refresh token reuse detected for user {}, revoking its successors", token.userId());
+                revokeChain(token.replacedBy(), now);
+            }
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+        if (revocationList.isRevoked(token.userId(), token.issuedAt())) {
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+
+        return new Renewal(token.userId(), token.role(), successor);
+    }
+
+    private void revokeChain(String tokenHash, Instant now) {
+        String next = tokenHash;
+        for (int i = 0; next != null && i < MAX_REVOKED_CHAIN; i++) {
+            next = refreshTokenRepository.revoke(next, now);
+        }
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record Renewal(String userId, String role, String refreshToken) {
+    }
+}
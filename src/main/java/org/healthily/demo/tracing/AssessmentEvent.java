@@ -0,0 +1,60 @@
+package org.healthily.demo.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One assessment operation served by the service: a start, a batch of answers or a result read.
+ */
+@Name("org.healthily.Assessment")
+@Label("Assessment Operation")
+@Category({"Healthily", "Assessment"})
+@StackTrace(false)
+public class AssessmentEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Assessment Id")
+    String assessmentId;
+
+    @Label("Question Count")
+    @Description("Symptoms given at start, or answers submitted")
+    int questionCount;
+
+    @Label("Outcome")
+    @Description("ongoing, completed or failed")
+    String outcome;
+
+    @Label("DynamoDB Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long dynamoDbTime;
+
+    private transient long dynamoDbAtStart;
+
+    public static AssessmentEvent start(String operation, int questionCount) {
+        AssessmentEvent event = new AssessmentEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.questionCount = questionCount;
+            event.dynamoDbAtStart = RequestTracer.totalNanos(RequestTracer.DYNAMODB_PREFIX);
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(String assessmentId, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.assessmentId = assessmentId;
+            this.outcome = outcome;
+            this.dynamoDbTime = RequestTracer.totalNanos(RequestTracer.DYNAMODB_PREFIX) - dynamoDbAtStart;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.healthily.demo.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A scan of the conditions or symptoms catalog, made on a catalog cache miss.
+ */
+@Name("org.healthily.CatalogLoad")
+@Label("Catalog Load")
+@Category({"Healthily", "Catalog"})
+@StackTrace(false)
+public class CatalogLoadEvent extends Event {
+
+    @Label("Catalog")
+    String catalog;
+
+    @Label("Size")
+    int size;
+
+    @Label("Stale")
+    boolean stale;
+
+    public static CatalogLoadEvent start(String catalog) {
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        if (event.isEnabled()) {
+            event.catalog = catalog;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(int size, boolean stale) {
+        end();
+        if (shouldCommit()) {
+            this.size = size;
+            this.stale = stale;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.healthily.demo.tracing;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code /actuator/flightrecording}: starts, downloads and stops one JDK Flight Recording on this instance, with
+ * the assessment, catalog and JWT events enabled. {@code POST} starts it, {@code GET} reports its state,
+ * {@code GET /dump} downloads what has been recorded so far and {@code DELETE} stops it.
+ */
+@Slf4j
+@Component
+@WebEndpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+
+    private static final List<String> SETTINGS = List.of("default", "profile");
+    private static final List<Class<? extends jdk.jfr.Event>> EVENTS =
+            List.of(AssessmentEvent.class, CatalogLoadEvent.class, JwtVerificationEvent.class);
+
+    private final TracingProperties.FlightRecording properties;
+    private Recording recording;
+    private Path lastDump;
+
+    public FlightRecordingEndpoint(TracingProperties properties) {
+        this.properties = properties.getFlightRecording();
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable String settings,
+                                                                       @Nullable Duration duration) {
+        if (isRunning()) {
+            return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        String settingsName = settings == null ? properties.getSettings() : settings;
+        if (!SETTINGS.contains(settingsName)) {
+            return new WebEndpointResponse<>(Map.of("error", "settings must be one of " + SETTINGS),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        Recording started;
+        try {
+            started = new Recording(Configuration.getConfiguration(settingsName));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Cannot load JFR settings " + settingsName, e);
+        }
+        for (Class<? extends jdk.jfr.Event> event : EVENTS) {
+            started.enable(event).withoutThreshold();
+        }
+        started.setName("healthily");
+        started.setToDisk(true);
+        started.setMaxAge(properties.getMaxAge());
+        started.setMaxSize(properties.getMaxSizeBytes());
+        started.setDuration(duration == null || duration.compareTo(properties.getMaxDuration()) > 0
+                ? properties.getMaxDuration() : duration);
+        started.start();
+        closeRecording();
+        recording = started;
+        log.info("Started flight recording {} with {} settings for {}", started.getId(), settingsName,
+                started.getDuration());
+        return new WebEndpointResponse<>(status());
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("id", recording.getId());
+        status.put("state", recording.getState());
+        status.put("startTime", recording.getStartTime());
+        status.put("duration", recording.getDuration());
+        status.put("maxAge", recording.getMaxAge());
+        status.put("maxSize", recording.getMaxSize());
+        status.put("size", recording.getSize());
+        return status;
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> dump(@Selector String name) {
+        if (!"dump".equals(name) || recording == null || recording.getState() == RecordingState.CLOSED) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        deleteLastDump();
+        try {
+            lastDump = Files.createTempFile("healthily-", ".jfr");
+            recording.dump(lastDump);
+            return new WebEndpointResponse<>(new TemporaryFileResource(lastDump));
+        } catch (IOException e) {
+            deleteLastDump();
+            throw new IllegalStateException("Cannot dump flight recording " + recording.getId(), e);
+        }
+    }
+
+    // The last recording is kept after it stops, so it can still be downloaded
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        if (isRunning()) {
+            recording.stop();
+            log.info("Stopped flight recording {}", recording.getId());
+        }
+        return status();
+    }
+
+    @PreDestroy
+    public synchronized void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        deleteLastDump();
+    }
+
+    // A dump whose download never started is not deleted by its stream, so at most one is left behind until the next
+    private void deleteLastDump() {
+        if (lastDump == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(lastDump);
+        } catch (IOException e) {
+            log.warn("Cannot delete flight recording dump {}", lastDump, e);
+        }
+        lastDump = null;
+    }
+
+    private boolean isRunning() {
+        return recording != null
+                && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED);
+    }
+
+    // Deleted once the response has been streamed, not a file for the writer so it reads through the stream
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.healthily.demo.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Verification of one bearer token, {@code cached} when the signature check was skipped.
+ */
+@Name("org.healthily.JwtVerification")
+@Label("JWT Verification")
+@Category({"Healthily", "Security"})
+@StackTrace(false)
+public class JwtVerificationEvent extends Event {
+
+    @Label("Result")
+    String result;
+
+    public static JwtVerificationEvent start() {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        if (event.isEnabled()) {
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(String result) {
+        end();
+        if (shouldCommit()) {
+            this.result = result;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.healthily.demo.tracing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spans recorded while serving one request, on the request thread only.
+ */
+public final class RequestTrace {
+
+    private final long startNanos = System.nanoTime();
+    private final long startEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private final int maxSpans;
+    private final List<Span> spans = new ArrayList<>();
+    private int dropped;
+
+    RequestTrace(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+
+    void add(String name, long startNanos, long durationNanos) {
+        if (spans.size() >= maxSpans) {
+            dropped++;
+            return;
+        }
+        spans.add(new Span(name, startNanos, durationNanos));
+    }
+
+    // Spans dropped past the cap are not included
+    long totalNanos(String prefix) {
+        long total = 0;
+        for (Span span : spans) {
+            if (span.name().startsWith(prefix)) {
+                total += span.durationNanos();
+            }
+        }
+        return total;
+    }
+
+    public List<Span> getSpans() {
+        return spans;
+    }
+
+    /**
+     * Wall clock time of a {@link System#nanoTime()} reading taken during this request.
+     */
+    public long toEpochNanos(long nanoTime) {
+        return startEpochNanos + (nanoTime - startNanos);
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Spans with the same name are summed, e.g. {@code db.getSymptom;dur=1.20;desc="x3", total;dur=4.75}.
+     */
+    public String serverTiming() {
+        Map<String, long[]> byName = new LinkedHashMap<>();
+        for (Span span : spans) {
+            long[] totals = byName.computeIfAbsent(span.name(), name -> new long[2]);
+            totals[0]++;
+            totals[1] += span.durationNanos();
+        }
+
+        StringBuilder header = new StringBuilder();
+        byName.forEach((name, totals) -> {
+            header.append(name).append(";dur=").append(millis(totals[1]));
+            if (totals[0] > 1) {
+                header.append(";desc=\"x").append(totals[0]).append('"');
+            }
+            header.append(", ");
+        });
+        if (dropped > 0) {
+            header.append("dropped;desc=\"").append(dropped).append(" spans\", ");
+        }
+        return header.append("total;dur=").append(millis(System.nanoTime() - startNanos)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    public record Span(String name, long startNanos, long durationNanos) {
+    }
+}
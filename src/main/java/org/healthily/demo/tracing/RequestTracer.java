@@ -0,0 +1,51 @@
+package org.healthily.demo.tracing;
+
+/**
+ * Entry point for recording spans against the request being served on the current thread. Recording outside a
+ * request, e.g. from a scheduled job or a WebSocket session, is a no-op, so call sites need no checks.
+ */
+public final class RequestTracer {
+
+    public static final String DYNAMODB_PREFIX = "db.";
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private RequestTracer() {
+    }
+
+    public static void record(String name, long startNanos, long durationNanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.add(name, startNanos, durationNanos);
+        }
+    }
+
+    /**
+     * Records a span that started at {@code startNanos} and ends now.
+     */
+    public static void record(String name, long startNanos) {
+        record(name, startNanos, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return the time recorded so far by spans whose name starts with {@code prefix}, 0 outside a request
+     */
+    public static long totalNanos(String prefix) {
+        RequestTrace trace = CURRENT.get();
+        return trace == null ? 0 : trace.totalNanos(prefix);
+    }
+
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    static RequestTrace begin(int maxSpans) {
+        RequestTrace trace = new RequestTrace(maxSpans);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,41 @@
+package org.healthily.demo.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Sets the Server-Timing header before the body is written, after which headers can no longer change. Runs inside
+ * the security filters, so the caller's roles are known here.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    private final TracingProperties properties;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return properties.isEnabled() && (properties.isServerTiming() || properties.isServerTimingDebug());
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTrace trace = RequestTracer.current();
+        if (trace != null && request instanceof ServletServerHttpRequest servletRequest
+                && ServerTimingPolicy.isVisible(properties, servletRequest.getServletRequest(),
+                SecurityContextHolder.getContext().getAuthentication())) {
+            response.getHeaders().set(ServerTimingFilter.SERVER_TIMING_HEADER, trace.serverTiming());
+        }
+        return body;
+    }
+}
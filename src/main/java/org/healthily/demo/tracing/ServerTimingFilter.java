@@ -0,0 +1,77 @@
+package org.healthily.demo.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a {@link RequestTrace} for each request. The Server-Timing header is normally added by
+ * {@link ServerTimingAdvice} just before the body is written; responses without a body get it here. The security
+ * context has been cleared by the time the chain returns, so the caller is read from the copy
+ * {@link org.healthily.demo.security.JwtAuthenticationFilter} leaves in a request attribute. When a tracer is
+ * configured, the spans are exported as children of the current request span once the request completes.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final TracingProperties properties;
+    private final ObjectProvider<Tracer> tracerProvider;
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+
+    public ServerTimingFilter(TracingProperties properties, ObjectProvider<Tracer> tracerProvider) {
+        this.properties = properties;
+        this.tracerProvider = tracerProvider;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTrace trace = RequestTracer.begin(properties.getMaxSpans());
+        try {
+            chain.doFilter(request, response);
+            if (!response.isCommitted() && !response.containsHeader(SERVER_TIMING_HEADER)
+                    && ServerTimingPolicy.isVisible(properties, request,
+                    securityContextRepository.loadDeferredContext(request).get().getAuthentication())) {
+                response.setHeader(SERVER_TIMING_HEADER, trace.serverTiming());
+            }
+        } finally {
+            RequestTracer.end();
+            export(trace);
+        }
+    }
+
+    private void export(RequestTrace trace) {
+        Tracer tracer = tracerProvider.getIfAvailable();
+        if (tracer == null || trace.getSpans().isEmpty()) {
+            return;
+        }
+        Span parent = tracer.currentSpan();
+        if (parent == null || !Boolean.TRUE.equals(parent.context().sampled())) {
+            return;
+        }
+        for (RequestTrace.Span span : trace.getSpans()) {
+            tracer.spanBuilder()
+                    .setParent(parent.context())
+                    .name(span.name())
+                    .startTimestamp(trace.toEpochNanos(span.startNanos()), TimeUnit.NANOSECONDS)
+                    .start()
+                    .end(trace.toEpochNanos(span.startNanos() + span.durationNanos()), TimeUnit.NANOSECONDS);
+        }
+    }
+}
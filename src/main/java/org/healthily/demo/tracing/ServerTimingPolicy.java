@@ -0,0 +1,36 @@
+package org.healthily.demo.tracing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Decides who sees the Server-Timing header. Span names such as {@code auth.bcrypt.verify} let a caller tell known
+ * accounts from unknown ones, so the header is only for authenticated callers, or for every caller when debugging
+ * locally, and never on {@code /auth/**}.
+ */
+final class ServerTimingPolicy {
+
+    private ServerTimingPolicy() {
+    }
+
+    static boolean isVisible(TracingProperties properties, HttpServletRequest request, Authentication authentication) {
+        if (!properties.isEnabled() || isAuthPath(request)) {
+            return false;
+        }
+        if (properties.isServerTimingDebug()) {
+            return true;
+        }
+        return properties.isServerTiming() && isAuthenticated(authentication);
+    }
+
+    private static boolean isAuthPath(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.equals("/auth") || path.startsWith("/auth/");
+    }
+
+    private static boolean isAuthenticated(Authentication authentication) {
+        return authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+}
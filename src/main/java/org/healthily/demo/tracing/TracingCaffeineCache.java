@@ -0,0 +1,48 @@
+package org.healthily.demo.tracing;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Records cache lookups as {@code cache.<name>} spans. Time spent loading a missing value is left to the spans of
+ * the loader itself.
+ */
+public class TracingCaffeineCache extends CaffeineCache {
+
+    private final String spanName;
+
+    public TracingCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+        this.spanName = "cache." + name;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        long start = System.nanoTime();
+        try {
+            return super.lookup(key);
+        } finally {
+            RequestTracer.record(spanName, start);
+        }
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        long start = System.nanoTime();
+        long[] loadNanos = new long[1];
+        try {
+            return super.get(key, () -> {
+                long loadStart = System.nanoTime();
+                try {
+                    return valueLoader.call();
+                } finally {
+                    loadNanos[0] = System.nanoTime() - loadStart;
+                }
+            });
+        } finally {
+            RequestTracer.record(spanName, start, System.nanoTime() - start - loadNanos[0]);
+        }
+    }
+}
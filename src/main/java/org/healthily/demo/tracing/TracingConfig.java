@@ -0,0 +1,25 @@
+package org.healthily.demo.tracing;
+
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfig {
+
+    // Inside the HTTP observation filter, so exported spans have the request span as parent, and ahead of security
+    // and load shedding, so their time is part of the trace
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(TracingProperties properties,
+                                                                         ObjectProvider<Tracer> tracerProvider) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(properties, tracerProvider));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,45 @@
+package org.healthily.demo.tracing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the request-scoped tracer. Export to an OpenTelemetry collector is configured separately through
+ * {@code management.tracing} and {@code management.otlp}.
+ */
+@Data
+@ConfigurationProperties(prefix = "tracing")
+public class TracingProperties {
+
+    private boolean enabled = true;
+
+    // Adds the Server-Timing header to responses for authenticated callers, never on /auth/**
+    private boolean serverTiming = true;
+
+    // Adds it for anonymous callers too, which exposes bcrypt timings, so local debugging only
+    private boolean serverTimingDebug = false;
+
+    // Bounds the memory a single request can use, later spans are only counted
+    private int maxSpans = 256;
+
+    private FlightRecording flightRecording = new FlightRecording();
+
+    /**
+     * Bounds for recordings started through {@code /actuator/flightrecording}. Requests may ask for less, never more.
+     */
+    @Data
+    public static class FlightRecording {
+
+        // JDK settings file the recording starts from, the assessment events are always enabled on top of it
+        private String settings = "profile";
+
+        private Duration maxAge = Duration.ofMinutes(30);
+
+        private long maxSizeBytes = 256L * 1024 * 1024;
+
+        // Recordings stop on their own, so a forgotten one cannot run until the pod restarts
+        private Duration maxDuration = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,50 @@
+package org.healthily.demo.utils;
+
+import org.healthily.demo.exception.BadRequestException;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Opaque pagination cursor for the assessment history, built from the LastEvaluatedKey of the user_id index.
+ * The user id is not part of the cursor, it is always taken from the authenticated request, so a cursor can never
+ * be used to page through another user's partition.
+ */
+public final class HistoryCursor {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    private HistoryCursor() {
+    }
+
+    public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        String raw = VERSION + SEPARATOR + lastEvaluatedKey.get("created_at").n() + SEPARATOR + lastEvaluatedKey.get("id").s();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Map<String, AttributeValue> decode(String cursor, String userId) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !VERSION.equals(parts[0]) || parts[2].isEmpty()) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return Map.of(
+                    "user_id", AttributeValue.builder().s(userId).build(),
+                    "created_at", AttributeValue.builder().n(String.valueOf(Long.parseLong(parts[1]))).build(),
+                    "id", AttributeValue.builder().s(parts[2]).build()
+            );
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -1,57 +1,133 @@
 package org.healthily.demo.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.healthily.demo.security.TokenRevocationList;
 import org.healthily.demo.security.User;
+import org.healthily.demo.tracing.JwtVerificationEvent;
+import org.healthily.demo.tracing.RequestTracer;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtil {
 
     private static final String SECRET_KEY = "MOCKEDVERYSECRETTOBESTOREDINSECRETSMANAGERLATER";
     private static final long EXPIRATION_TIME = 1000 * 60 * 60;
+    private static final long MAX_VERIFIED_TOKENS = 100_000;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private final JwtParser parser = Jwts.parser().verifyWith(signingKey).build();
+    private final TokenRevocationList revocationList;
+    private final Timer cachedVerifications;
+    private final Timer parsedVerifications;
+    private final Timer rejectedVerifications;
+
+    // Claims of tokens that passed verification, keyed by token digest and dropped when the token expires
+    private final Cache<String, Claims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(MAX_VERIFIED_TOKENS)
+            .expireAfter(Expiry.creating((String digest, Claims claims) -> timeToExpiry(claims)))
+            .build();
+
+    public JwtUtil(TokenRevocationList revocationList, MeterRegistry registry) {
+        this.revocationList = revocationList;
+        this.cachedVerifications = registry.timer("auth.jwt.verify", "result", "cached");
+        this.parsedVerifications = registry.timer("auth.jwt.verify", "result", "parsed");
+        this.rejectedVerifications = registry.timer("auth.jwt.verify", "result", "rejected");
     }
 
     public String generateToken(User user) {
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(user.getId())
                 .claim("role", user.getEntityType())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public boolean validateToken(String token) {
-        try {
-            extractClaims(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+    /**
+     * Parses and verifies a token once; repeat calls with the same token are a digest and a cache lookup, plus the
+     * in-memory revocation check.
+     *
+     * @return the claims, or {@code null} when the token is invalid, expired or revoked
+     */
+    public Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
         }
+        long start = System.nanoTime();
+        JwtVerificationEvent event = JwtVerificationEvent.start();
+        String digest = digest(token);
+        Timer timer = cachedVerifications;
+        String result = "cached";
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims == null) {
+            try {
+                claims = parser.parseSignedClaims(token).getPayload();
+            } catch (JwtException | IllegalArgumentException e) {
+                rejectedVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                RequestTracer.record("auth.jwt", start);
+                event.finish("rejected");
+                return null;
+            }
+            verifiedTokens.put(digest, claims);
+            timer = parsedVerifications;
+            result = "parsed";
+        }
+        if (revocationList.isRevoked(claims)) {
+            timer = rejectedVerifications;
+            result = "rejected";
+            claims = null;
+        }
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        RequestTracer.record("auth.jwt", start);
+        event.finish(result);
+        return claims;
+    }
+
+    public boolean validateToken(String token) {
+        return verify(token) != null;
     }
 
     public String extractUsername(String token) {
-        final Claims claims = extractClaims(token);
-        return claims.getSubject();
+        Claims claims = verify(token);
+        return claims == null ? null : claims.getSubject();
     }
 
-    private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static Duration timeToExpiry(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
     }
-}
 
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.healthily.demo.warmup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the warm-up that runs before the readiness probe reports the instance as ready.
+ */
+@Data
+@ConfigurationProperties(prefix = "warm-up")
+public class WarmUpProperties {
+
+    private boolean enabled = true;
+
+    // Deadline for the whole warm-up, readiness is delayed by at most this much plus the engine round in progress
+    private Duration budget = Duration.ofSeconds(20);
+
+    // Synthetic assessments run through the engine and the serializers per round
+    private int assessmentsPerRound = 50;
+
+    // Rounds always run, so the hot methods reach the optimizing compiler even if the JIT looks idle early on
+    private int minRounds = 20;
+
+    // A round counts as settled when the JIT spent less than this share of its wall time compiling
+    private double settleRatio = 0.02;
+
+    // Consecutive settled rounds after which compilation is considered done
+    private int settledRounds = 3;
+
+    // DynamoDB connections opened up front by issuing this many reads at once
+    private int connections = 8;
+
+    // Below the SDK connection max idle time, so the warmed connections are not closed between requests
+    private Duration keepAliveInterval = Duration.ofSeconds(30);
+}
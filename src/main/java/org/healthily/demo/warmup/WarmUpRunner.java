@@ -0,0 +1,260 @@
+package org.healthily.demo.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.dto.AnswerQuestionRequest;
+import org.healthily.demo.model.dto.AssessmentResponse;
+import org.healthily.demo.model.dto.StartAssessmentRequest;
+import org.healthily.demo.repository.HealthDataRepository;
+import org.healthily.demo.service.AssessmentService;
+import org.healthily.demo.service.DiagnosticEngine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Warms the instance up before it takes traffic: loads the catalog caches, opens the DynamoDB connections and runs
+ * synthetic assessments through the engine and Jackson until the JIT settles or the budget runs out.
+ * Readiness only turns to accepting traffic once all command line runners have returned, so this runs after the
+ * tables are seeded and before the load balancer sends the first request. Nothing is persisted and no assessment
+ * metrics are recorded.
+ */
+@Component
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@EnableConfigurationProperties(WarmUpProperties.class)
+@RequiredArgsConstructor
+public class WarmUpRunner implements CommandLineRunner {
+
+    private static final String WARM_UP_USER = "warm-up";
+
+    private final WarmUpProperties properties;
+    private final HealthDataRepository healthDataRepository;
+    private final DiagnosticEngine engine;
+    private final AssessmentService assessmentService;
+    private final ObjectMapper objectMapper;
+    // Absent with the in-memory profile
+    private final ObjectProvider<DynamoDbClient> dynamoDB;
+
+    @Value("${dynamodb.table.health_data}")
+    private String healthDataTable;
+
+    @Override
+    public void run(String... args) {
+        if (!properties.isEnabled()) {
+            log.info("Warm-up disabled");
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + properties.getBudget().toNanos();
+
+        // The phases that wait on DynamoDB run on their own threads, so a slow or unreachable table cannot hold
+        // readiness past the deadline. A phase that overruns is abandoned together with the ones after it.
+        ExecutorService phases = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            withinBudget("open DynamoDB connections", phases, deadline, this::openConnections);
+            List<String> symptomIds = withinBudget("load the catalog", phases, deadline, this::loadCatalog);
+            warmUpEngine(symptomIds, deadline);
+            log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (TimeoutException e) {
+            log.warn("Warm-up budget of {} ran out during: {}, the first requests pay for the rest",
+                    properties.getBudget(), e.getMessage());
+        } catch (RuntimeException e) {
+            // Same as a cold start from here on, the first requests load what is missing themselves
+            log.warn("Warm-up failed, the first requests pay for the rest: {}", e.getMessage());
+        } finally {
+            phases.shutdownNow();
+        }
+    }
+
+    /**
+     * Keeps the warmed connections from idling out of the pool while there is no traffic.
+     */
+    @Scheduled(initialDelayString = "${warm-up.keep-alive-interval}", fixedDelayString = "${warm-up.keep-alive-interval}")
+    public void keepAlive() {
+        if (properties.isEnabled()) {
+            try {
+                touchConnections();
+            } catch (RuntimeException e) {
+                log.debug("DynamoDB keep-alive failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static <T> T withinBudget(String phase, ExecutorService phases, long deadline, Callable<T> task)
+            throws TimeoutException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new TimeoutException(phase);
+        }
+        Future<T> result = phases.submit(task);
+        try {
+            return result.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new TimeoutException(phase);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not %s: %s".formatted(phase, e.getCause().getMessage()),
+                    e.getCause());
+        }
+    }
+
+    private Void openConnections() {
+        long start = System.nanoTime();
+        try {
+            if (touchConnections()) {
+                log.info("Opened {} DynamoDB connections in {} ms", properties.getConnections(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (RuntimeException e) {
+            // The catalog and engine phases are still worth running
+            log.warn("Warm-up could not open DynamoDB connections: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    // Concurrent reads force the pool to open one connection per read, the TLS and DNS setup is paid here
+    private boolean touchConnections() {
+        DynamoDbClient client = dynamoDB.getIfAvailable();
+        if (client == null) {
+            return false;
+        }
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(healthDataTable)
+                .key(Map.of("id", AttributeValue.builder().s("CATALOG#VERSION").build()))
+                .projectionExpression("id")
+                .build();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> reads = new ArrayList<>();
+            for (int i = 0; i < properties.getConnections(); i++) {
+                reads.add(executor.submit(() -> client.getItem(request)));
+            }
+            for (Future<?> read : reads) {
+                read.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while opening DynamoDB connections", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+        return true;
+    }
+
+    // Goes through the repository beans, so the results land in the same caches requests read from
+    private List<String> loadCatalog() {
+        List<Map<String, AttributeValue>> conditions = healthDataRepository.getAllConditions();
+        List<Map<String, AttributeValue>> symptoms = healthDataRepository.getAllSymptoms();
+        List<String> symptomIds = symptoms.stream()
+                .map(symptom -> symptom.get("id").s().replace("SYMPTOM#", ""))
+                .toList();
+        symptomIds.forEach(healthDataRepository::getSymptom);
+        log.info("Loaded catalog caches: {} conditions, {} symptoms", conditions.size(), symptoms.size());
+        return symptomIds;
+    }
+
+    // Runs on the calling thread from the warmed caches, a round in progress finishes after the deadline
+    private void warmUpEngine(List<String> symptomIds, long deadline) {
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        boolean jitMonitored = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        long compileStart = jitMonitored ? compiler.getTotalCompilationTime() : 0;
+
+        // Fixed seed, every instance warms up on the same assessments
+        Random random = new Random(42);
+        int rounds = 0;
+        int settled = 0;
+        while (System.nanoTime() < deadline && settled < properties.getSettledRounds()) {
+            long roundStart = System.nanoTime();
+            long compileBefore = jitMonitored ? compiler.getTotalCompilationTime() : 0;
+            for (int i = 0; i < properties.getAssessmentsPerRound(); i++) {
+                runAssessment(symptomIds, random);
+            }
+            rounds++;
+
+            long roundMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - roundStart));
+            long compileMillis = jitMonitored ? compiler.getTotalCompilationTime() - compileBefore : 0;
+            boolean roundSettled = (double) compileMillis / roundMillis < properties.getSettleRatio();
+            settled = rounds >= properties.getMinRounds() && roundSettled ? settled + 1 : 0;
+        }
+
+        log.info("Warmed up the engine with {} assessments in {} rounds, JIT time {} ms, {}",
+                rounds * properties.getAssessmentsPerRound(), rounds,
+                jitMonitored ? compiler.getTotalCompilationTime() - compileStart : "n/a",
+                settled >= properties.getSettledRounds() ? "compilation settled" : "budget exhausted");
+    }
+
+    // Mirrors a start followed by answers until a diagnosis, through the same engine and serializers as requests
+    private void runAssessment(List<String> symptomIds, Random random) {
+        List<String> initialSymptoms = pickSymptoms(symptomIds, 1 + random.nextInt(3), random);
+        StartAssessmentRequest start = read(write(new StartAssessmentRequest(WARM_UP_USER, initialSymptoms)),
+                StartAssessmentRequest.class);
+
+        AssessmentState assessment = engine.start(UUID.randomUUID().toString(), WARM_UP_USER,
+                start.getInitialSymptoms(), DiagnosticEngine.StepListener.NONE);
+        while (!assessment.isCompleted()) {
+            write(AssessmentResponse.builder()
+                    .assessmentId(assessment.getId())
+                    .nextQuestionId(assessment.getNextQuestionId())
+                    .build());
+            AnswerQuestionRequest answer = read("{\"question_id\":\"%s\",\"response\":\"%s\"}".formatted(
+                    assessment.getNextQuestionId(), random.nextBoolean() ? "yes" : "no"), AnswerQuestionRequest.class);
+            assessment = engine.advance(assessment, List.of(answer), DiagnosticEngine.StepListener.NONE);
+        }
+        write(assessmentService.buildResult(assessment.getId(), assessment));
+    }
+
+    private static List<String> pickSymptoms(List<String> symptomIds, int count, Random random) {
+        List<String> remaining = new ArrayList<>(symptomIds);
+        List<String> picked = new ArrayList<>(count);
+        while (picked.size() < count && !remaining.isEmpty()) {
+            picked.add(remaining.remove(random.nextInt(remaining.size())));
+        }
+        return picked;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Warm-up could not serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Warm-up could not deserialize " + type.getSimpleName(), e);
+        }
+    }
+}
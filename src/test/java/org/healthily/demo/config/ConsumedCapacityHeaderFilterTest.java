@@ -0,0 +1,66 @@
+package org.healthily.demo.config;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.healthily.demo.repository.ConsumedCapacityRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumedCapacityHeaderFilterTest {
+
+    private final DynamoDBProperties properties = new DynamoDBProperties();
+    private final ConsumedCapacityHeaderFilter filter = new ConsumedCapacityHeaderFilter(properties);
+
+    @Test
+    void addsHeader_ToResponsesWithoutBody() throws Exception {
+        properties.getConsumedCapacity().setDebugHeader(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/assessment/abc");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                req.setAttribute(ConsumedCapacityRecorder.REQUEST_ATTRIBUTE, Map.of("getAssessment", 0.5));
+                ((HttpServletResponse) res).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            }
+        });
+
+        assertEquals(304, response.getStatus());
+        assertEquals("total=0.5; getAssessment=0.5", response.getHeader(ConsumedCapacityHeaderFilter.HEADER));
+    }
+
+    @Test
+    void addsHeader_BeforeBodyIsFlushed() throws Exception {
+        properties.getConsumedCapacity().setDebugHeader(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/assessment/history");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) throws IOException {
+                res.getWriter().write("{}");
+                res.flushBuffer();
+            }
+        });
+
+        assertTrue(response.isCommitted());
+        assertEquals("total=0", response.getHeader(ConsumedCapacityHeaderFilter.HEADER));
+    }
+
+    @Test
+    void addsNothing_WhenDisabled() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/assessment/abc"), response, new MockFilterChain());
+
+        assertNull(response.getHeader(ConsumedCapacityHeaderFilter.HEADER));
+    }
+}
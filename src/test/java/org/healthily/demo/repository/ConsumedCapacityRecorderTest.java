@@ -0,0 +1,139 @@
+package org.healthily.demo.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import software.amazon.awssdk.services.dynamodb.model.Capacity;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumedCapacityRecorderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConsumedCapacityRecorder recorder = new ConsumedCapacityRecorder(registry);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void record_AttributesCapacityToEndpointAndOperation() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/assessment/abc/answer");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/assessment/{assessment_id}/answer");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        recorder.record("getAssessment", GetItemResponse.builder()
+                .consumedCapacity(capacity("assessments", 0.5))
+                .build());
+
+        assertEquals(0.5, registry.counter("dynamodb.consumed.capacity",
+                "endpoint", "POST /assessment/{assessment_id}/answer", "operation", "getAssessment",
+                "table", "assessments", "index", "table").count());
+        assertEquals(Map.of("getAssessment", 0.5), request.getAttribute(ConsumedCapacityRecorder.REQUEST_ATTRIBUTE));
+    }
+
+    @Test
+    void record_SplitsIndexCapacity_AndRanksTopConsumers() {
+        recorder.record("findByUserId", QueryResponse.builder()
+                .consumedCapacity(capacity("assessments", 2.0).toBuilder()
+                        .table(Capacity.builder().capacityUnits(0.0).build())
+                        .globalSecondaryIndexes(Map.of("user_id-created_at-index",
+                                Capacity.builder().capacityUnits(2.0).build()))
+                        .build())
+                .build());
+        recorder.record("getAssessment", GetItemResponse.builder()
+                .consumedCapacity(capacity("assessments", 0.5))
+                .build());
+
+        assertEquals(2.0, registry.counter("dynamodb.consumed.capacity",
+                "endpoint", "background", "operation", "findByUserId",
+                "table", "assessments", "index", "user_id-created_at-index").count());
+        List<ConsumedCapacityRecorder.ConsumerUsage> top = recorder.topConsumers(1);
+        assertEquals(1, top.size());
+        assertEquals("findByUserId", top.get(0).operation());
+    }
+
+    @Test
+    void record_IgnoresResponsesWithoutCapacity() {
+        recorder.record("getAssessment", GetItemResponse.builder().build());
+        recorder.record("other", "not a response");
+
+        assertTrue(recorder.topConsumers(10).isEmpty());
+    }
+
+    @Test
+    void recordFailure_CountsFailedConditionalWrites() {
+        recorder.recordFailure("PutItem", PutItemRequest.builder().tableName("users").build(),
+                ConditionalCheckFailedException.builder().message("The conditional request failed").build());
+        recorder.recordFailure("TransactWriteItems", TransactWriteItemsRequest.builder()
+                        .transactItems(
+                                TransactWriteItem.builder().put(Put.builder().tableName("users").build()).build(),
+                                TransactWriteItem.builder().put(Put.builder().tableName("users").build()).build())
+                        .build(),
+                TransactionCanceledException.builder().message("Transaction cancelled").build());
+
+        assertEquals(1.0, registry.counter("dynamodb.consumed.capacity",
+                "endpoint", "background", "operation", "PutItem", "table", "users", "index", "table").count());
+        assertEquals(4.0, registry.counter("dynamodb.consumed.capacity",
+                "endpoint", "background", "operation", "TransactWriteItems", "table", "users", "index", "table")
+                .count());
+    }
+
+    @Test
+    void recordFailure_IgnoresOtherErrors() {
+        recorder.recordFailure("GetItem", GetItemRequest.builder().tableName("users").build(),
+                ConditionalCheckFailedException.builder().build());
+        recorder.recordFailure("PutItem", PutItemRequest.builder().tableName("users").build(),
+                new IllegalStateException("timeout"));
+
+        assertTrue(recorder.topConsumers(10).isEmpty());
+    }
+
+    @Test
+    void attributed_CarriesOperationAndRequest_ToOtherThreads() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/assessment/abc");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/assessment/{assessment_id}");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        Supplier<Void> call = recorder.attributed("getAssessment", () -> {
+            recorder.record("GetItem", GetItemResponse.builder()
+                    .consumedCapacity(capacity("assessments", 0.5))
+                    .build());
+            return null;
+        });
+        // Both attempts of a hedged read are counted, the losing one included
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Thread thread = new Thread(call::get);
+            thread.start();
+            thread.join();
+        }
+
+        assertEquals(1.0, registry.counter("dynamodb.consumed.capacity",
+                "endpoint", "GET /assessment/{assessment_id}", "operation", "getAssessment",
+                "table", "assessments", "index", "table").count());
+        assertEquals(Map.of("getAssessment", 1.0), request.getAttribute(ConsumedCapacityRecorder.REQUEST_ATTRIBUTE));
+    }
+
+    private static ConsumedCapacity capacity(String table, double units) {
+        return ConsumedCapacity.builder().tableName(table).capacityUnits(units).build();
+    }
+}
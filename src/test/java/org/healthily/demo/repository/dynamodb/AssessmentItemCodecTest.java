@@ -0,0 +1,60 @@
+package org.healthily.demo.repository.dynamodb;
+
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.AssessmentStatus;
+import org.healthily.demo.model.ResponseType;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssessmentItemCodecTest {
+
+    @Test
+    void encodeThenDecode_RoundTripsEveryField() {
+        AssessmentState state = AssessmentState.builder()
+                .id("a1")
+                .userId("user123")
+                .createdAt(1700000000000L)
+                .initialSymptoms(List.of("fever"))
+                .status(AssessmentStatus.ONGOING)
+                .probabilities(Map.of("cold", new BigDecimal("0.00001"), "flu", new BigDecimal("0.99999")))
+                .askedQuestions(Map.of("cough", ResponseType.NO))
+                .nextQuestionId("sneezing")
+                .lastIdempotencyKey("key-1")
+                .build();
+
+        Map<String, AttributeValue> item = AssessmentItemCodec.encode(state);
+
+        assertEquals("0.00001", item.get("probabilities").m().get("cold").n());
+        assertEquals("no", item.get("asked_questions").m().get("cough").s());
+        assertEquals(state, AssessmentItemCodec.decode(item));
+    }
+
+    @Test
+    void encode_OmitsEmptyAndMissingAttributes() {
+        AssessmentState state = AssessmentState.builder()
+                .id("a1")
+                .userId("user123")
+                .status(AssessmentStatus.COMPLETED)
+                .diagnosis("flu")
+                .build();
+
+        Map<String, AttributeValue> item = AssessmentItemCodec.encode(state);
+
+        assertFalse(item.containsKey("initial_symptoms"));
+        assertFalse(item.containsKey("asked_questions"));
+        assertFalse(item.containsKey("created_at"));
+        assertFalse(item.containsKey("next_question_id"));
+    }
+
+    @Test
+    void decode_ReturnsNull_ForMissingItem() {
+        assertNull(AssessmentItemCodec.decode(Map.of()));
+        assertNull(AssessmentItemCodec.decode(null));
+    }
+}
@@ -0,0 +1,92 @@
+package org.healthily.demo.repository.dynamodb;
+
+import org.healthily.demo.model.dto.RegisterRequest;
+import org.healthily.demo.repository.DynamoDBCallExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DynamoDBUserRepositoryTest {
+
+    @Mock
+    private DynamoDbClient dynamoDB;
+
+    @Mock
+    private DynamoDBCallExecutor callExecutor;
+
+    @InjectMocks
+    private DynamoDBUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repository, "usersTable", "users");
+        lenient().when(callExecutor.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        lenient().when(callExecutor.read(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+
+    @Test
+    void createUser_WritesUserAndGuard_InOneRoundTrip() {
+        when(dynamoDB.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        assertTrue(repository.createUser(registerRequest(), "hash"));
+
+        verify(dynamoDB).transactWriteItems(argThat((TransactWriteItemsRequest request) ->
+                request.transactItems().size() == 2
+                        && "EMAIL#user@example.com".equals(request.transactItems().get(0).put().item().get("id").s())));
+        verify(dynamoDB, never()).query(any(QueryRequest.class));
+    }
+
+    @Test
+    void createUser_ReturnsFalse_WhenGuardConditionFails() {
+        when(dynamoDB.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(cancelled("ConditionalCheckFailed", "None"));
+
+        assertFalse(repository.createUser(registerRequest(), "hash"));
+    }
+
+    @Test
+    void createUser_Rethrows_WhenTransactionIsCancelledForAnotherReason() {
+        when(dynamoDB.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(cancelled("TransactionConflict", "None"));
+
+        assertThrows(TransactionCanceledException.class, () -> repository.createUser(registerRequest(), "hash"));
+    }
+
+    private static TransactionCanceledException cancelled(String... codes) {
+        CancellationReason[] reasons = new CancellationReason[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            reasons[i] = CancellationReason.builder().code(codes[i]).build();
+        }
+        return TransactionCanceledException.builder().cancellationReasons(reasons).build();
+    }
+
+    private static RegisterRequest registerRequest() {
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail("user@example.com");
+        request.setPassword("secret");
+        request.setAge(30);
+        request.setGender("female");
+        return request;
+    }
+}
@@ -0,0 +1,86 @@
+package org.healthily.demo.repository.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.AssessmentStatus;
+import org.healthily.demo.repository.AssessmentRepository;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryAssessmentRepositoryTest {
+
+    private final InMemoryAssessmentRepository repository = new InMemoryAssessmentRepository(
+            new InMemorySnapshots(new ObjectMapper(), ""), Duration.ofDays(30));
+
+    @Test
+    void createAssessment_ReturnsExistingWhenIdTaken() {
+        AssessmentState first = assessment("a1", 1, "Cough");
+        assertNull(repository.createAssessment(first));
+
+        assertEquals(first, repository.createAssessment(assessment("a1", 2, "Fever")));
+        assertEquals(first, repository.getAssessment("a1"));
+    }
+
+    @Test
+    void updateAssessment_OnlyWritesWhenExpectedQuestionMatches() {
+        repository.createAssessment(assessment("a1", 1, "Cough"));
+        AssessmentState answered = assessment("a1", 1, "Fever");
+
+        assertNull(repository.updateAssessment(answered, "Cough"));
+        // A concurrent answer to the same question lost the race
+        assertEquals(answered, repository.updateAssessment(assessment("a1", 1, "Headache"), "Cough"));
+        assertEquals(answered, repository.getAssessment("a1"));
+    }
+
+    @Test
+    void updateAssessment_ThrowsWhenMissing() {
+        assertThrows(ResourceNotFoundException.class,
+                () -> repository.updateAssessment(assessment("missing", 1, "Fever"), "Cough"));
+    }
+
+    @Test
+    void findByUserId_PagesNewestFirst() {
+        repository.createAssessment(assessment("a1", 1, "Cough"));
+        repository.createAssessment(assessment("a2", 2, "Cough"));
+        repository.createAssessment(assessment("a3", 3, "Cough"));
+
+        AssessmentRepository.HistoryPage first = repository.findByUserId("user123", 2, null);
+        assertEquals(List.of("a3", "a2"), first.items().stream().map(AssessmentState::getId).toList());
+        assertNotNull(first.lastEvaluatedKey());
+
+        AssessmentRepository.HistoryPage second = repository.findByUserId("user123", 2, first.lastEvaluatedKey());
+        assertEquals(List.of("a1"), second.items().stream().map(AssessmentState::getId).toList());
+        assertNull(second.lastEvaluatedKey());
+        assertNull(second.items().get(0).getNextQuestionId());
+    }
+
+    @Test
+    void purgeExpired_KeepsCompletedAssessments_UntilArchived() {
+        InMemoryAssessmentRepository repository = new InMemoryAssessmentRepository(
+                new InMemorySnapshots(new ObjectMapper(), ""), Duration.ZERO);
+        repository.createAssessment(assessment("a1", 1, null).toBuilder().status(AssessmentStatus.COMPLETED).build());
+
+        repository.purgeExpired();
+        assertNotNull(repository.getAssessment("a1"));
+
+        repository.expireAfterArchive("a1");
+        repository.purgeExpired();
+        assertNull(repository.getAssessment("a1"));
+    }
+
+    private static AssessmentState assessment(String id, long createdAt, String nextQuestionId) {
+        return AssessmentState.builder()
+                .id(id)
+                .userId("user123")
+                .createdAt(createdAt)
+                .initialSymptoms(List.of("Sneezing"))
+                .status(AssessmentStatus.ONGOING)
+                .nextQuestionId(nextQuestionId)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package org.healthily.demo.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private ConcurrencyLimitProperties properties;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(50);
+        limiter = new AdaptiveConcurrencyLimiter(properties);
+    }
+
+    @Test
+    void tryAcquire_ShedsLowerPriorityFirst() {
+        for (int i = 0; i < 7; i++) {
+            assertTrue(limiter.tryAcquire(1.0));
+        }
+
+        assertFalse(limiter.tryAcquire(0.7));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertFalse(limiter.tryAcquire(1.0));
+    }
+
+    @Test
+    void limit_Grows_WhileLatencyIsStable() {
+        runAtLimit(FAST, 50);
+
+        assertTrue(limiter.getLimit() > 10);
+    }
+
+    @Test
+    void limit_Shrinks_WhenLatencyRises() {
+        runAtLimit(FAST, 50);
+        int grown = limiter.getLimit();
+
+        runAtLimit(SLOW, 5);
+
+        assertTrue(limiter.getLimit() < grown);
+    }
+
+    @Test
+    void limit_BacksOff_OnFailures() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire(1.0));
+            limiter.release(FAST, true);
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    // Keeps the limiter saturated, so every sample counts towards the gradient
+    private void runAtLimit(long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (limiter.tryAcquire(1.0)) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(rttNanos, false);
+            }
+        }
+    }
+}
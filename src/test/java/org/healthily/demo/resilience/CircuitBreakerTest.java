@@ -0,0 +1,117 @@
+package org.healthily.demo.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    private final AtomicLong clock = new AtomicLong();
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        CircuitBreakerProperties properties = new CircuitBreakerProperties();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(10);
+        properties.setFailureRateThreshold(0.5);
+        properties.setSlowCallRateThreshold(0.8);
+        properties.setSlowCallDuration(Duration.ofSeconds(1));
+        properties.setOpenDuration(Duration.ofSeconds(10));
+        properties.setHalfOpenCalls(2);
+        circuitBreaker = new CircuitBreaker(properties, clock::get);
+    }
+
+    @Test
+    void staysClosed_BelowMinimumCalls() {
+        recordCalls(9, true, FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void opens_WhenFailureRateCrossesThreshold() {
+        recordCalls(5, false, FAST);
+        recordCalls(5, true, FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+        assertEquals(TimeUnit.SECONDS.toNanos(10), circuitBreaker.remainingOpenNanos());
+    }
+
+    @Test
+    void opens_WhenCallsAreSlow() {
+        recordCalls(2, false, FAST);
+        recordCalls(8, false, SLOW);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void closes_AfterSuccessfulTrialCalls() {
+        recordCalls(10, true, FAST);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        CircuitBreaker.Permit first = circuitBreaker.tryAcquirePermission();
+        CircuitBreaker.Permit second = circuitBreaker.tryAcquirePermission();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess(first, FAST);
+        circuitBreaker.onSuccess(second, FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertNotNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void reopens_WhenTrialCallFails() {
+        recordCalls(10, true, FAST);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        circuitBreaker.onError(circuitBreaker.tryAcquirePermission(), FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void ignoresLateResults_OfCallsPermittedBeforeHalfOpen() {
+        CircuitBreaker.Permit slowFailure = circuitBreaker.tryAcquirePermission();
+        CircuitBreaker.Permit lateSuccess = circuitBreaker.tryAcquirePermission();
+        recordCalls(10, true, FAST);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        CircuitBreaker.Permit trial = circuitBreaker.tryAcquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onError(slowFailure, SLOW);
+        circuitBreaker.onSuccess(lateSuccess, FAST);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.onSuccess(trial, FAST);
+        circuitBreaker.onSuccess(circuitBreaker.tryAcquirePermission(), FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    private void recordCalls(int calls, boolean failed, long duration) {
+        for (int i = 0; i < calls; i++) {
+            CircuitBreaker.Permit permit = circuitBreaker.tryAcquirePermission();
+            assertNotNull(permit);
+            if (failed) {
+                circuitBreaker.onError(permit, duration);
+            } else {
+                circuitBreaker.onSuccess(permit, duration);
+            }
+        }
+    }
+}
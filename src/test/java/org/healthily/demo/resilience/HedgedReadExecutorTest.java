@@ -0,0 +1,102 @@
+package org.healthily.demo.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedReadExecutorTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private HedgedReadExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void read_WhenDisabled_CallsOnceOnCallerThread() {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setEnabled(false);
+        executor = new HedgedReadExecutor(properties, registry);
+        Thread caller = Thread.currentThread();
+
+        Thread used = executor.read("op", Thread::currentThread);
+
+        assertSame(caller, used);
+    }
+
+    @Test
+    void read_WhenPrimaryIsSlow_HedgeWins() {
+        executor = new HedgedReadExecutor(enabledProperties(), registry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String result = executor.read("op", () -> {
+            if (attempts.getAndIncrement() == 0) {
+                sleep(2_000);
+                return "primary";
+            }
+            return "hedge";
+        });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("hedge", result);
+        assertTrue(elapsedMillis < 1_000, "hedged read took " + elapsedMillis + "ms");
+        assertEquals(1.0, registry.counter("dynamodb.hedge.sent", "operation", "op").count());
+        assertEquals(1.0, registry.counter("dynamodb.hedge.wins", "operation", "op").count());
+    }
+
+    @Test
+    void read_WhenBudgetExhausted_WaitsForPrimary() {
+        HedgingProperties properties = enabledProperties();
+        properties.setBudgetBurst(0);
+        properties.setBudgetRatio(0);
+        executor = new HedgedReadExecutor(properties, registry);
+
+        String result = executor.read("op", () -> {
+            sleep(100);
+            return "primary";
+        });
+
+        assertEquals("primary", result);
+        assertEquals(0.0, registry.counter("dynamodb.hedge.sent", "operation", "op").count());
+        assertEquals(1.0, registry.counter("dynamodb.hedge.budget.exhausted", "operation", "op").count());
+    }
+
+    @Test
+    void read_WhenAllAttemptsFail_PropagatesException() {
+        executor = new HedgedReadExecutor(enabledProperties(), registry);
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () ->
+                executor.read("op", () -> {
+                    throw new IllegalArgumentException("boom");
+                }));
+
+        assertEquals("boom", thrown.getMessage());
+    }
+
+    private HedgingProperties enabledProperties() {
+        HedgingProperties properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setInitialDelay(Duration.ofMillis(20));
+        properties.setThreads(4);
+        return properties;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.healthily.demo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.healthily.demo.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void hashAndMatches_RunOnThePool() {
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), properties(1, 1, Duration.ofSeconds(5)), registry);
+
+        String hash = hasher.hash("secret");
+
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("wrong", hash));
+    }
+
+    @Test
+    void hash_RejectsWith429_WhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        hasher = new PasswordHasher(blockingEncoder(started, release), properties(1, 1, Duration.ofSeconds(5)), registry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.hash("a"));
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.hash("b"));
+        awaitQueued();
+
+        assertThrows(TooManyRequestsException.class, () -> hasher.hash("c"));
+        assertEquals(1.0, registry.counter("password.hashing.rejected", "reason", "queue_full").count());
+
+        release.countDown();
+        assertEquals("hashed", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hashed", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void hash_RejectsWith429_WhenWaitingTooLong() {
+        CountDownLatch release = new CountDownLatch(1);
+        hasher = new PasswordHasher(blockingEncoder(new CountDownLatch(1), release), properties(1, 1, Duration.ofMillis(50)), registry);
+
+        assertThrows(TooManyRequestsException.class, () -> hasher.hash("a"));
+        release.countDown();
+    }
+
+    private void awaitQueued() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("password.hashing.queued").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static PasswordHashingProperties properties(int threads, int queueCapacity, Duration maxWait) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setMaxWait(maxWait);
+        return properties;
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package org.healthily.demo.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.healthily.demo.repository.RevokedTokenRepository;
+import org.healthily.demo.repository.RevokedTokenRepository.Revocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationListTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        TokenRevocationProperties properties = new TokenRevocationProperties();
+        properties.setExpectedRevocations(1_000);
+        revocationList = new TokenRevocationList(repository, properties, Duration.ofDays(30), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void revokeToken_AppliesLocallyAtOnce() {
+        Claims revoked = claims("token-1", "user123", Instant.now());
+        Claims other = claims("token-2", "user123", Instant.now());
+
+        revocationList.revokeToken(revoked);
+
+        assertTrue(revocationList.isRevoked(revoked));
+        assertFalse(revocationList.isRevoked(other));
+        verify(repository).revokeToken(eq("token-1"), eq("user123"), any(), any());
+    }
+
+    @Test
+    void revokeUser_RevokesTokensIssuedBefore() {
+        Claims before = claims("token-1", "user123", Instant.now().minusSeconds(60));
+        Claims otherUser = claims("token-2", "user456", Instant.now().minusSeconds(60));
+
+        revocationList.revokeUser("user123");
+
+        assertTrue(revocationList.isRevoked(before));
+        assertFalse(revocationList.isRevoked(otherUser));
+        assertFalse(revocationList.isRevoked("user123", Instant.now().plusSeconds(5)));
+    }
+
+    @Test
+    void refresh_PicksUpRevocationsFromOtherNodes() {
+        Instant now = Instant.now();
+        when(repository.findRevokedSince(any(), any())).thenReturn(List.of(
+                new Revocation("token-1", "user123", now, now.plusSeconds(600)),
+                new Revocation("token-2", "user123", now, now.minusSeconds(1))));
+
+        revocationList.refresh();
+
+        assertTrue(revocationList.isRevoked(claims("token-1", "user123", now)));
+        // Already expired, so pruned
+        assertFalse(revocationList.isRevoked(claims("token-2", "user123", now)));
+    }
+
+    @Test
+    void refresh_KeepsMirror_WhenDynamoDBFails() {
+        Claims revoked = claims("token-1", "user123", Instant.now());
+        revocationList.revokeToken(revoked);
+        when(repository.findRevokedSince(any(), any())).thenThrow(new IllegalStateException("down"));
+
+        revocationList.refresh();
+
+        assertTrue(revocationList.isRevoked(revoked));
+    }
+
+    private static Claims claims(String tokenId, String userId, Instant issuedAt) {
+        return Jwts.claims()
+                .id(tokenId)
+                .subject(userId)
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(issuedAt.plusSeconds(3600)))
+                .build();
+    }
+}
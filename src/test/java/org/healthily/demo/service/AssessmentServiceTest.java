@@ -1,22 +1,31 @@
 package org.healthily.demo.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.healthily.demo.exception.BackendUnavailableException;
 import org.healthily.demo.exception.BadRequestException;
+import org.healthily.demo.model.AssessmentState;
+import org.healthily.demo.model.AssessmentStatus;
 import org.healthily.demo.model.ResponseType;
 import org.healthily.demo.model.dto.AnswerQuestionRequest;
+import org.healthily.demo.model.dto.AnswerQuestionsRequest;
+import org.healthily.demo.model.dto.AssessmentHistoryResponse;
 import org.healthily.demo.model.dto.AssessmentResponse;
 import org.healthily.demo.model.dto.AssessmentResultResponse;
 import org.healthily.demo.model.dto.StartAssessmentRequest;
+import org.healthily.demo.repository.AssessmentArchiveRepository;
 import org.healthily.demo.repository.AssessmentRepository;
 import org.healthily.demo.repository.HealthDataRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.test.context.support.WithMockUser;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
+import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -26,6 +35,8 @@ import java.util.stream.Collectors;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,7 +48,11 @@ class AssessmentServiceTest {
     @Mock
     private AssessmentRepository assessmentRepository;
 
-    @InjectMocks
+    @Mock
+    private AssessmentArchiveRepository assessmentArchiveRepository;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
     private AssessmentService assessmentService;
 
     private List<Map<String, AttributeValue>> mockConditions;
@@ -45,6 +60,8 @@ class AssessmentServiceTest {
 
     @BeforeEach
     void setUp() {
+        assessmentService = new AssessmentService(new DiagnosticEngine(healthDataRepository), assessmentRepository,
+                assessmentArchiveRepository, registry);
         mockConditions = Arrays.asList(
                 createCondition("cold", "0.1"),
                 createCondition("flu", "0.05")
@@ -66,7 +83,7 @@ class AssessmentServiceTest {
         when(healthDataRepository.getAllConditions()).thenReturn(mockConditions);
         when(healthDataRepository.getAllSymptoms()).thenReturn(mockSymptoms);
 
-        AssessmentResponse response = assessmentService.startAssessment(request);
+        AssessmentResponse response = assessmentService.startAssessment(request, null);
 
         assertNotNull(response);
         assertNotNull(response.getAssessmentId());
@@ -74,7 +91,7 @@ class AssessmentServiceTest {
         assertNotNull(response.getNextQuestionId());
         verify(healthDataRepository).getAllConditions();
         verify(healthDataRepository).getAllSymptoms();
-        verify(assessmentRepository).saveAssessment(anyString(), any());
+        verify(assessmentRepository).saveAssessment(any());
     }
 
     @Test
@@ -85,19 +102,19 @@ class AssessmentServiceTest {
         request.setQuestionId("fever");
         request.setResponse(ResponseType.YES);
 
-        Map<String, AttributeValue> assessment = createMockAssessment("user123", "fever");
+        AssessmentState assessment = createMockAssessment("user123", "fever");
         when(assessmentRepository.getAssessment(assessmentId)).thenReturn(assessment);
         when(healthDataRepository.getSymptom("fever")).thenReturn(mockSymptoms.get(0));
         when(healthDataRepository.getAllSymptoms()).thenReturn(mockSymptoms);
 
-        AssessmentResponse response = assessmentService.answerQuestion(assessmentId, request);
+        AssessmentResponse response = assessmentService.answerQuestion(assessmentId, request, null);
 
         assertNotNull(response);
         assertEquals(assessmentId, response.getAssessmentId());
         assertEquals("user123", response.getUserId());
         verify(assessmentRepository).getAssessment(assessmentId);
         verify(healthDataRepository).getSymptom("fever");
-        verify(assessmentRepository).updateAssessment(any());
+        verify(assessmentRepository).updateAssessment(any(), anyString());
     }
 
     @Test
@@ -109,7 +126,7 @@ class AssessmentServiceTest {
         when(assessmentRepository.getAssessment(assessmentId)).thenReturn(null);
 
         assertThrows(BadRequestException.class, () ->
-                assessmentService.answerQuestion(assessmentId, request));
+                assessmentService.answerQuestion(assessmentId, request, null));
 
         verify(assessmentRepository).getAssessment(assessmentId);
         verifyNoInteractions(healthDataRepository);
@@ -124,11 +141,11 @@ class AssessmentServiceTest {
         request.setQuestionId("fever");
         request.setResponse(ResponseType.YES);
 
-        Map<String, AttributeValue> assessment = createMockAssessment("user123", "no fever");
+        AssessmentState assessment = createMockAssessment("user123", "no fever");
         when(assessmentRepository.getAssessment(assessmentId)).thenReturn(assessment);
 
         assertThrows(BadRequestException.class, () ->
-                assessmentService.answerQuestion(assessmentId, request));
+                assessmentService.answerQuestion(assessmentId, request, null));
 
         verify(assessmentRepository).getAssessment(assessmentId);
         verifyNoInteractions(healthDataRepository);
@@ -143,40 +160,223 @@ class AssessmentServiceTest {
         request.setQuestionId("fever");
         request.setResponse(ResponseType.YES);
 
-        Map<String, AttributeValue> assessment = createMockAssessment("user123", "fever");
+        AssessmentState assessment = createMockAssessment("user123", "fever");
         when(assessmentRepository.getAssessment(assessmentId)).thenReturn(assessment);
         when(healthDataRepository.getSymptom("fever")).thenReturn(null);
 
         assertThrows(BadRequestException.class, () ->
-                assessmentService.answerQuestion(assessmentId, request));
+                assessmentService.answerQuestion(assessmentId, request, null));
 
         verify(assessmentRepository).getAssessment(assessmentId);
         verify(healthDataRepository).getSymptom("fever");
         verifyNoMoreInteractions(assessmentRepository);
     }
 
+    @Test
+    @WithMockUser(username = "user123")
+    void answerQuestions_AppliesAnswersInOrder_AndStopsAtDiagnosis() {
+        String assessmentId = "test-id";
+        List<Map<String, AttributeValue>> symptoms = Arrays.asList(
+                mockSymptoms.get(0),
+                mockSymptoms.get(1),
+                createSymptom("sneezing", Map.of("cold", "0.9", "flu", "0.1"))
+        );
+        AnswerQuestionsRequest request = new AnswerQuestionsRequest(List.of(
+                new AnswerQuestionRequest("fever", ResponseType.YES),
+                new AnswerQuestionRequest("cough", ResponseType.NO),
+                new AnswerQuestionRequest("sneezing", ResponseType.YES),
+                new AnswerQuestionRequest("headache", ResponseType.YES)
+        ));
+
+        when(assessmentRepository.getAssessment(assessmentId)).thenReturn(createMockAssessment("user123", "fever"));
+        when(healthDataRepository.getSymptom("fever")).thenReturn(symptoms.get(0));
+        when(healthDataRepository.getSymptom("cough")).thenReturn(symptoms.get(1));
+        when(healthDataRepository.getSymptom("sneezing")).thenReturn(symptoms.get(2));
+        when(healthDataRepository.getAllSymptoms()).thenReturn(symptoms);
+
+        AssessmentResponse response = assessmentService.answerQuestions(assessmentId, request, null);
+
+        assertNull(response.getNextQuestionId());
+        assertEquals("user123", response.getUserId());
+        verify(assessmentRepository, times(1)).getAssessment(assessmentId);
+        verify(assessmentRepository, times(1)).updateAssessment(any(), anyString());
+        verify(assessmentArchiveRepository).archive(argThat(archived -> archived.isCompleted() && assessmentId.equals(archived.getId())));
+        verify(assessmentRepository).expireAfterArchive(assessmentId);
+        verify(healthDataRepository, never()).getSymptom("headache");
+    }
+
+    @Test
+    void checkpoint_LeavesHotItemWithoutExpiry_WhenArchiveFails() {
+        AssessmentState persisted = createMockAssessment("user123", "fever");
+        AssessmentState completed = createCompletedAssessment("user123", "flu").toBuilder().id("test-id").build();
+        doThrow(new BackendUnavailableException("DynamoDB call archive failed", 1))
+                .when(assessmentArchiveRepository).archive(completed);
+
+        assessmentService.checkpoint(completed, persisted);
+
+        verify(assessmentRepository).updateAssessment(completed, "fever");
+        verify(assessmentRepository, never()).expireAfterArchive(anyString());
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void answerQuestions_ThrowsException_WhenAnswerIsOutOfOrder() {
+        String assessmentId = "test-id";
+        AnswerQuestionsRequest request = new AnswerQuestionsRequest(List.of(
+                new AnswerQuestionRequest("fever", ResponseType.YES),
+                new AnswerQuestionRequest("fever", ResponseType.YES)
+        ));
+
+        when(assessmentRepository.getAssessment(assessmentId)).thenReturn(createMockAssessment("user123", "fever"));
+        when(healthDataRepository.getSymptom("fever")).thenReturn(mockSymptoms.get(0));
+        when(healthDataRepository.getAllSymptoms()).thenReturn(mockSymptoms);
+
+        assertThrows(BadRequestException.class, () ->
+                assessmentService.answerQuestions(assessmentId, request, null));
+
+        verify(assessmentRepository, never()).updateAssessment(any(), anyString());
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void startAssessment_ReplaysExistingAssessment_WhenIdempotencyKeyRepeats() {
+        StartAssessmentRequest request = new StartAssessmentRequest("user123", List.of("fever"));
+        when(healthDataRepository.getAllConditions()).thenReturn(mockConditions);
+        when(healthDataRepository.getAllSymptoms()).thenReturn(mockSymptoms);
+        when(assessmentRepository.createAssessment(any()))
+                .thenAnswer(invocation -> createMockAssessment("user123", "cough").toBuilder()
+                        .id(invocation.<AssessmentState>getArgument(0).getId())
+                        .build());
+
+        AssessmentResponse first = assessmentService.startAssessment(request, "key-1");
+        AssessmentResponse retry = assessmentService.startAssessment(request, "key-1");
+
+        assertEquals(first.getAssessmentId(), retry.getAssessmentId());
+        assertEquals("cough", retry.getNextQuestionId());
+        verify(assessmentRepository, never()).saveAssessment(any());
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void startAssessment_ReadsExistingAssessment_WithoutRunningEngine() {
+        StartAssessmentRequest request = new StartAssessmentRequest("user123", List.of("fever"));
+        when(assessmentRepository.getAssessment(anyString()))
+                .thenAnswer(invocation -> createMockAssessment("user123", "cough").toBuilder()
+                        .id(invocation.getArgument(0))
+                        .build());
+
+        AssessmentResponse retry = assessmentService.startAssessment(request, "key-1");
+
+        assertEquals("cough", retry.getNextQuestionId());
+        verifyNoInteractions(healthDataRepository);
+        verify(assessmentRepository, never()).createAssessment(any());
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void answerQuestion_ReplaysStoredState_WhenRetryArrivesAfterNewerAnswer() {
+        AssessmentState assessment = createMockAssessment("user123", "headache").toBuilder()
+                .askedQuestions(Map.of("fever", ResponseType.YES, "cough", ResponseType.NO))
+                .lastIdempotencyKey("key-2")
+                .build();
+        when(assessmentRepository.getAssessment("test-id")).thenReturn(assessment);
+
+        AssessmentResponse response = assessmentService.answerQuestion("test-id",
+                new AnswerQuestionRequest("fever", ResponseType.YES), "key-1");
+
+        assertEquals("headache", response.getNextQuestionId());
+        verifyNoInteractions(healthDataRepository);
+        verify(assessmentRepository, never()).updateAssessment(any(), anyString());
+    }
+
+    @Test
+    @WithMockUser(username = "user123")
+    void answerQuestion_ReplaysStoredState_WhenIdempotencyKeyRepeats() {
+        AssessmentState assessment = createMockAssessment("user123", "cough").toBuilder()
+                .lastIdempotencyKey("key-1")
+                .build();
+        when(assessmentRepository.getAssessment("test-id")).thenReturn(assessment);
+
+        AssessmentResponse response = assessmentService.answerQuestion("test-id",
+                new AnswerQuestionRequest("fever", ResponseType.YES), "key-1");
+
+        assertEquals("cough", response.getNextQuestionId());
+        verifyNoInteractions(healthDataRepository);
+        verify(assessmentRepository, never()).updateAssessment(any(), anyString());
+    }
+
+    @Test
+    void advance_KeepsStateInMemory_UntilCheckpoint() {
+        AssessmentState assessment = createMockAssessment("user123", "fever");
+        when(healthDataRepository.getSymptom("fever")).thenReturn(mockSymptoms.get(0));
+        when(healthDataRepository.getAllSymptoms()).thenReturn(mockSymptoms);
+
+        AssessmentState advanced = assessmentService.advance(assessment,
+                List.of(new AnswerQuestionRequest("fever", ResponseType.YES)));
+
+        assertEquals(ResponseType.YES, advanced.getAskedQuestions().get("fever"));
+        assertTrue(assessment.getAskedQuestions().isEmpty());
+        verifyNoInteractions(assessmentRepository);
+
+        assessmentService.checkpoint(advanced, assessment);
+
+        verify(assessmentRepository).updateAssessment(advanced, "fever");
+    }
+
+    @Test
+    void checkpoint_Throws_WhenUpdatedConcurrently() {
+        AssessmentState persisted = createMockAssessment("user123", "fever");
+        AssessmentState advanced = persisted.toBuilder().nextQuestionId("cough").build();
+        when(assessmentRepository.updateAssessment(advanced, "fever"))
+                .thenReturn(persisted.toBuilder().nextQuestionId("headache").build());
+
+        assertThrows(BadRequestException.class, () -> assessmentService.checkpoint(advanced, persisted));
+        verifyNoInteractions(assessmentArchiveRepository);
+    }
+
+    @Test
+    void loadAssessment_ThrowsException_WhenOwnedByAnotherUser() {
+        when(assessmentRepository.getAssessment("test-id")).thenReturn(createMockAssessment("otherUser", "fever"));
+
+        assertThrows(BadRequestException.class, () -> assessmentService.loadAssessment("test-id", "user123"));
+    }
 
     @Test
     @WithMockUser(username = "user123")
     void getAssessmentResult_Success() {
         String assessmentId = "test-id";
-        Map<String, AttributeValue> assessment = createCompletedAssessment("user123", "flu");
-        when(assessmentRepository.getAssessment(assessmentId)).thenReturn(assessment);
+        AssessmentState assessment = createCompletedAssessment("user123", "flu");
+        when(assessmentRepository.getAssessmentResult(assessmentId)).thenReturn(assessment);
 
         AssessmentResultResponse response = assessmentService.getAssessmentResult(assessmentId);
 
         assertNotNull(response);
         assertEquals("flu", response.getCondition());
         assertEquals("user123", response.getUserId());
-        assertNotNull(response.getProbabilities());
-        verify(assessmentRepository).getAssessment(assessmentId);
+        assertEquals("80.0%", response.getProbabilities().get("flu"));
+        assertNotNull(response.getEtag());
+        verify(assessmentRepository).getAssessmentResult(assessmentId);
+        verifyNoInteractions(assessmentArchiveRepository);
+    }
+
+    @Test
+    void getAssessmentResult_FallsBackToArchive_WhenExpiredFromHotTable() {
+        String assessmentId = "test-id";
+        when(assessmentRepository.getAssessmentResult(assessmentId)).thenReturn(null);
+        when(assessmentArchiveRepository.getArchivedResult(assessmentId))
+                .thenReturn(createCompletedAssessment("user123", "flu"));
+
+        AssessmentResultResponse response = assessmentService.getAssessmentResult(assessmentId);
+
+        assertEquals("flu", response.getCondition());
+        assertEquals("user123", response.getUserId());
     }
 
     @Test
     @WithMockUser(username = "user123")
     void getAssessmentResult_ThrowsException_WhenNoAssessment() {
         String assessmentId = "test-id";
-        when(assessmentRepository.getAssessment(assessmentId)).thenReturn(null);
+        when(assessmentRepository.getAssessmentResult(assessmentId)).thenReturn(null);
 
         assertThrows(BadRequestException.class, () ->
                 assessmentService.getAssessmentResult(assessmentId));
@@ -186,38 +386,74 @@ class AssessmentServiceTest {
     @WithMockUser(username = "user123")
     void getAssessmentResult_ThrowsException_WhenAssessmentOngoing() {
         String assessmentId = "test-id";
-        Map<String, AttributeValue> assessment = createMockAssessment("user123", "fever");
-        when(assessmentRepository.getAssessment(assessmentId)).thenReturn(assessment);
+        AssessmentState assessment = createMockAssessment("user123", "fever");
+        when(assessmentRepository.getAssessmentResult(assessmentId)).thenReturn(assessment);
 
         assertThrows(BadRequestException.class, () ->
                 assessmentService.getAssessmentResult(assessmentId));
     }
 
-    private Map<String, AttributeValue> createMockAssessment(String userId, String nextQuestionId) {
-        return Map.of(
-                "user_id", AttributeValue.builder().s(userId).build(),
-                "status", AttributeValue.builder().s("ongoing").build(),
-                "next_question_id", AttributeValue.builder().s(nextQuestionId).build(),
-                "probabilities", AttributeValue.builder().m(Map.of(
-                        "cold", AttributeValue.builder().n("0.6").build(),
-                        "flu", AttributeValue.builder().n("0.4").build()
-                )).build(),
-                "initial_symptoms", AttributeValue.builder().ss(List.of("headache")).build()
+    @Test
+    @WithMockUser(username = "user123")
+    void getAssessmentHistory_ReturnsSummariesAndCursor() throws Exception {
+        AssessmentState summary = AssessmentState.builder()
+                .id("a1")
+                .status(AssessmentStatus.COMPLETED)
+                .diagnosis("flu")
+                .initialSymptoms(List.of("fever"))
+                .createdAt(1700000000000L)
+                .build();
+        Map<String, AttributeValue> lastKey = Map.of(
+                "id", AttributeValue.builder().s("a1").build(),
+                "user_id", AttributeValue.builder().s("user123").build(),
+                "created_at", AttributeValue.builder().n("1700000000000").build()
         );
+        when(assessmentRepository.findByUserId(eq("user123"), eq(1), isNull()))
+                .thenReturn(new AssessmentRepository.HistoryPage(List.of(summary), lastKey));
+        when(assessmentRepository.findByUserId(eq("user123"), eq(1), eq(lastKey)))
+                .thenReturn(new AssessmentRepository.HistoryPage(List.of(), null));
+
+        AssessmentHistoryResponse firstPage = assessmentService.getAssessmentHistory("user123", 1, null);
+
+        assertEquals(1, firstPage.getAssessments().size());
+        assertEquals("a1", firstPage.getAssessments().get(0).getAssessmentId());
+        assertEquals("flu", firstPage.getAssessments().get(0).getDiagnosis());
+        assertNotNull(firstPage.getNextCursor());
+
+        AssessmentHistoryResponse secondPage = assessmentService.getAssessmentHistory("user123", 1, firstPage.getNextCursor());
+
+        assertTrue(secondPage.getAssessments().isEmpty());
+        assertNull(secondPage.getNextCursor());
+        assertEquals("{\"assessments\":[]}", new ObjectMapper().writeValueAsString(secondPage));
     }
 
-    private Map<String, AttributeValue> createCompletedAssessment(String userId, String diagnosis) {
-        Map<String, AttributeValue> probabilities = Map.of(
-                "cold", AttributeValue.builder().n("0.2").build(),
-                "flu", AttributeValue.builder().n("0.8").build()
-        );
+    @Test
+    @WithMockUser(username = "user123")
+    void getAssessmentHistory_ThrowsException_WhenCursorIsInvalid() {
+        assertThrows(BadRequestException.class, () ->
+                assessmentService.getAssessmentHistory("user123", 20, "not-a-cursor"));
 
-        return Map.of(
-                "user_id", AttributeValue.builder().s(userId).build(),
-                "status", AttributeValue.builder().s("completed").build(),
-                "diagnosis", AttributeValue.builder().s(diagnosis).build(),
-                "probabilities", AttributeValue.builder().m(probabilities).build()
-        );
+        verifyNoInteractions(assessmentRepository);
+    }
+
+    private AssessmentState createMockAssessment(String userId, String nextQuestionId) {
+        return AssessmentState.builder()
+                .id("test-id")
+                .userId(userId)
+                .status(AssessmentStatus.ONGOING)
+                .nextQuestionId(nextQuestionId)
+                .probabilities(Map.of("cold", new BigDecimal("0.6"), "flu", new BigDecimal("0.4")))
+                .initialSymptoms(List.of("headache"))
+                .build();
+    }
+
+    private AssessmentState createCompletedAssessment(String userId, String diagnosis) {
+        return AssessmentState.builder()
+                .userId(userId)
+                .status(AssessmentStatus.COMPLETED)
+                .diagnosis(diagnosis)
+                .probabilities(Map.of("cold", new BigDecimal("0.2"), "flu", new BigDecimal("0.8")))
+                .build();
     }
 
     private Map<String, AttributeValue> createCondition(String id, String prevalence) {
@@ -0,0 +1,141 @@
+package org.healthily.demo.service;
+
+import org.healthily.demo.exception.BadRequestException;
+import org.healthily.demo.model.dto.LoginRequest;
+import org.healthily.demo.model.dto.RefreshRequest;
+import org.healthily.demo.model.dto.RegisterRequest;
+import org.healthily.demo.model.dto.RegisterResponse;
+import org.healthily.demo.repository.UserRepository;
+import org.healthily.demo.security.AdminProperties;
+import org.healthily.demo.security.PasswordHasher;
+import org.healthily.demo.security.TokenRevocationList;
+import org.healthily.demo.security.User;
+import org.healthily.demo.utils.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationList revocationList;
+
+    @Spy
+    private AdminProperties adminProperties = new AdminProperties();
+
+    @InjectMocks
+    private AuthService authService;
+
+    @Test
+    void register_CreatesUserWithHashedPassword() {
+        RegisterRequest request = registerRequest();
+        when(passwordHasher.hash("secret")).thenReturn("hash");
+        when(userRepository.createUser(request, "hash")).thenReturn(true);
+
+        RegisterResponse response = authService.register(request);
+
+        assertEquals("User successfully created", response.getMessage());
+    }
+
+    @Test
+    void register_ThrowsException_WhenEmailIsTaken() {
+        RegisterRequest request = registerRequest();
+        when(passwordHasher.hash("secret")).thenReturn("hash");
+        when(userRepository.createUser(any(), any())).thenReturn(false);
+
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> authService.register(request));
+
+        assertEquals("User already exists", exception.getMessage());
+    }
+
+    @Test
+    void login_GrantsAdminRole_ToConfiguredUserIds() {
+        adminProperties.setUserIds(List.of("admin-id"));
+        when(userRepository.findByEmail("user@example.com")).thenReturn(user("admin-id"));
+        when(passwordHasher.matches("secret", "hash")).thenReturn(true);
+
+        authService.login(loginRequest());
+
+        ArgumentCaptor<User> principal = ArgumentCaptor.forClass(User.class);
+        verify(jwtUtil).generateToken(principal.capture());
+        assertEquals("ADMIN", principal.getValue().getEntityType());
+        // The refresh token keeps the stored role, the admin role is granted again on every refresh
+        verify(refreshTokenService).issue("admin-id", "USER");
+    }
+
+    @Test
+    void login_KeepsStoredRole_ForOtherUsers() {
+        adminProperties.setUserIds(List.of("admin-id"));
+        when(userRepository.findByEmail("user@example.com")).thenReturn(user("user-id"));
+        when(passwordHasher.matches("secret", "hash")).thenReturn(true);
+
+        authService.login(loginRequest());
+
+        ArgumentCaptor<User> principal = ArgumentCaptor.forClass(User.class);
+        verify(jwtUtil).generateToken(principal.capture());
+        assertEquals("USER", principal.getValue().getEntityType());
+    }
+
+    @Test
+    void refresh_GrantsAdminRole_ToConfiguredUserIds() {
+        adminProperties.setUserIds(List.of("admin-id"));
+        when(refreshTokenService.rotate("refresh")).thenReturn(
+                new RefreshTokenService.Renewal("admin-id", "USER", "successor"));
+        RefreshRequest request = new RefreshRequest();
+        request.setRefreshToken("refresh");
+
+        authService.refresh(request);
+
+        ArgumentCaptor<User> principal = ArgumentCaptor.forClass(User.class);
+        verify(jwtUtil).generateToken(principal.capture());
+        assertEquals("ADMIN", principal.getValue().getEntityType());
+    }
+
+    private static User user(String id) {
+        return User.builder()
+                .id(id)
+                .email("user@example.com")
+                .password("hash")
+                .entityType("USER")
+                .build();
+    }
+
+    private static LoginRequest loginRequest() {
+        LoginRequest request = new LoginRequest();
+        request.setEmail("user@example.com");
+        request.setPassword("secret");
+        return request;
+    }
+
+    private static RegisterRequest registerRequest() {
+        RegisterRequest request = new RegisterRequest();
+        request.setEmail("user@example.com");
+        request.setPassword("secret");
+        request.setAge(30);
+        request.setGender("female");
+        return request;
+    }
+}
@@ -0,0 +1,88 @@
+package org.healthily.demo.service;
+
+import org.healthily.demo.exception.UnauthorizedException;
+import org.healthily.demo.repository.RefreshTokenRepository;
+import org.healthily.demo.security.TokenRevocationList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private TokenRevocationList revocationList;
+
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshTokenService, "ttl", Duration.ofDays(30));
+    }
+
+    @Test
+    void rotate_IssuesSuccessor_WhenTokenIsValid() {
+        when(refreshTokenRepository.rotate(anyString(), anyString(), any(), any())).thenReturn(new RefreshTokenRepository.Rotation(
+                new RefreshTokenRepository.RefreshToken("user123", "USER", Instant.now(), "next", true, false), true));
+
+        RefreshTokenService.Renewal renewal = refreshTokenService.rotate("token");
+
+        assertEquals("user123", renewal.userId());
+        assertNotEquals("token", renewal.refreshToken());
+        verify(refreshTokenRepository, never()).save(anyString(), anyString(), anyString(), any(), any());
+        verify(refreshTokenRepository, never()).revoke(anyString(), any());
+    }
+
+    @Test
+    void rotate_RevokesSuccessors_WhenUsedTokenIsReplayed() {
+        when(refreshTokenRepository.rotate(anyString(), anyString(), any(), any())).thenReturn(new RefreshTokenRepository.Rotation(
+                new RefreshTokenRepository.RefreshToken("user123", "USER", Instant.now(), "second", true, false), false));
+        when(refreshTokenRepository.revoke(eq("second"), any())).thenReturn("third");
+        when(refreshTokenRepository.revoke(eq("third"), any())).thenReturn(null);
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("token"));
+
+        verify(refreshTokenRepository).revoke(eq("second"), any());
+        verify(refreshTokenRepository).revoke(eq("third"), any());
+        verify(refreshTokenRepository, never()).save(anyString(), anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void rotate_Rejects_TokenIssuedBeforeLogoutFromAllDevices() {
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        when(refreshTokenRepository.rotate(anyString(), anyString(), any(), any())).thenReturn(new RefreshTokenRepository.Rotation(
+                new RefreshTokenRepository.RefreshToken("user123", "USER", issuedAt, "next", true, false), true));
+        when(revocationList.isRevoked("user123", issuedAt)).thenReturn(true);
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("token"));
+
+        verify(refreshTokenRepository, never()).save(anyString(), anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    void rotate_Rejects_UnknownToken() {
+        when(refreshTokenRepository.rotate(anyString(), anyString(), any(), any()))
+                .thenReturn(new RefreshTokenRepository.Rotation(null, false));
+
+        assertThrows(UnauthorizedException.class, () -> refreshTokenService.rotate("token"));
+
+        verify(refreshTokenRepository, never()).revoke(anyString(), any());
+    }
+}
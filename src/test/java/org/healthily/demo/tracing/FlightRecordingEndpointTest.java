@@ -0,0 +1,120 @@
+package org.healthily.demo.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingEndpointTest {
+
+    private FlightRecordingEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        TracingProperties properties = new TracingProperties();
+        properties.getFlightRecording().setSettings("default");
+        properties.getFlightRecording().setMaxDuration(Duration.ofMinutes(5));
+        endpoint = new FlightRecordingEndpoint(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.closeRecording();
+    }
+
+    @Test
+    void status_IsNone_BeforeAnyRecording() {
+        assertEquals("NONE", endpoint.status().get("state"));
+    }
+
+    @Test
+    void start_CapsDuration_AtMaxDuration() {
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start(null, Duration.ofHours(2));
+
+        assertEquals(WebEndpointResponse.STATUS_OK, response.getStatus());
+        assertEquals(Duration.ofMinutes(5), response.getBody().get("duration"));
+    }
+
+    @Test
+    void start_KeepsShorterDuration() {
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start(null, Duration.ofMinutes(1));
+
+        assertEquals(Duration.ofMinutes(1), response.getBody().get("duration"));
+    }
+
+    @Test
+    void start_Rejects_UnknownSettings() {
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start("custom", null);
+
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, response.getStatus());
+        assertEquals("NONE", endpoint.status().get("state"));
+    }
+
+    @Test
+    void start_Rejects_WhileRunning() {
+        endpoint.start(null, null);
+        Object id = endpoint.status().get("id");
+
+        WebEndpointResponse<Map<String, Object>> response = endpoint.start(null, null);
+
+        assertEquals(WebEndpointResponse.STATUS_BAD_REQUEST, response.getStatus());
+        assertEquals(id, endpoint.status().get("id"));
+    }
+
+    @Test
+    void stop_KeepsRecording_ForDownload() {
+        endpoint.start(null, null);
+
+        Map<String, Object> status = endpoint.stop();
+
+        assertEquals("STOPPED", status.get("state").toString());
+        assertEquals(WebEndpointResponse.STATUS_OK, endpoint.dump("dump").getStatus());
+    }
+
+    @Test
+    void dump_IsNotFound_WithoutRecording_OrForOtherSelectors() {
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.dump("dump").getStatus());
+
+        endpoint.start(null, null);
+
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, endpoint.dump("other").getStatus());
+    }
+
+    @Test
+    void dump_DeletesFile_OnceStreamed() throws Exception {
+        endpoint.start(null, null);
+        Resource resource = endpoint.dump("dump").getBody();
+        Path file = resource.getFile().toPath();
+        assertTrue(Files.exists(file));
+
+        try (InputStream in = resource.getInputStream()) {
+            in.readAllBytes();
+        }
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void dump_DeletesPreviousFile_WhenNeverDownloaded() throws Exception {
+        endpoint.start(null, null);
+        Path first = endpoint.dump("dump").getBody().getFile().toPath();
+
+        Path second = endpoint.dump("dump").getBody().getFile().toPath();
+
+        assertFalse(Files.exists(first));
+        assertTrue(Files.exists(second));
+
+        endpoint.closeRecording();
+
+        assertFalse(Files.exists(second));
+    }
+}
@@ -0,0 +1,51 @@
+package org.healthily.demo.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTracerTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @AfterEach
+    void tearDown() {
+        RequestTracer.end();
+    }
+
+    @Test
+    void serverTiming_SumsSpansWithTheSameName() {
+        RequestTrace trace = RequestTracer.begin(10);
+        long start = trace.getStartNanos();
+
+        RequestTracer.record("auth.jwt", start, MILLI / 2);
+        RequestTracer.record("db.getSymptom", start, MILLI);
+        RequestTracer.record("db.getSymptom", start, 2 * MILLI);
+
+        String header = trace.serverTiming();
+
+        assertTrue(header.startsWith("auth.jwt;dur=0.50, db.getSymptom;dur=3.00;desc=\"x2\", total;dur="), header);
+    }
+
+    @Test
+    void record_CapsSpansPerRequest() {
+        RequestTrace trace = RequestTracer.begin(2);
+
+        for (int i = 0; i < 5; i++) {
+            RequestTracer.record("cache.symptom", trace.getStartNanos(), MILLI);
+        }
+
+        assertEquals(2, trace.getSpans().size());
+        assertTrue(trace.serverTiming().contains("dropped;desc=\"3 spans\""));
+    }
+
+    @Test
+    void record_IsNoOp_OutsideRequest() {
+        RequestTracer.record("db.getAssessment", System.nanoTime(), MILLI);
+
+        assertNull(RequestTracer.current());
+    }
+}
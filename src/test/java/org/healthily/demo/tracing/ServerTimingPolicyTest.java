@@ -0,0 +1,63 @@
+package org.healthily.demo.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingPolicyTest {
+
+    private static final Authentication USER = new UsernamePasswordAuthenticationToken(
+            "user", null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+    private static final Authentication ANONYMOUS = new AnonymousAuthenticationToken(
+            "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+    @Test
+    void isVisible_ForAuthenticatedCallers_ByDefault() {
+        TracingProperties properties = new TracingProperties();
+
+        assertTrue(ServerTimingPolicy.isVisible(properties, request("/assessment/start"), USER));
+    }
+
+    @Test
+    void isVisible_NotForAnonymousCallers() {
+        TracingProperties properties = new TracingProperties();
+
+        assertFalse(ServerTimingPolicy.isVisible(properties, request("/assessment/start"), ANONYMOUS));
+        assertFalse(ServerTimingPolicy.isVisible(properties, request("/assessment/start"), null));
+    }
+
+    @Test
+    void isVisible_NeverWhenDisabled() {
+        TracingProperties properties = new TracingProperties();
+        properties.setServerTiming(false);
+
+        assertFalse(ServerTimingPolicy.isVisible(properties, request("/assessment/start"), USER));
+    }
+
+    @Test
+    void isVisible_ForEveryCaller_WithDebugFlag() {
+        TracingProperties properties = new TracingProperties();
+        properties.setServerTimingDebug(true);
+
+        assertTrue(ServerTimingPolicy.isVisible(properties, request("/assessment/start"), null));
+    }
+
+    @Test
+    void isVisible_NeverOnAuthPaths() {
+        TracingProperties properties = new TracingProperties();
+        properties.setServerTimingDebug(true);
+
+        assertFalse(ServerTimingPolicy.isVisible(properties, request("/auth/login"), USER));
+        assertFalse(ServerTimingPolicy.isVisible(properties, request("/auth"), null));
+        assertTrue(ServerTimingPolicy.isVisible(properties, request("/authors"), null));
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+}
@@ -0,0 +1,50 @@
+package org.healthily.demo.utils;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.healthily.demo.security.TokenRevocationList;
+import org.healthily.demo.security.User;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtUtilTest {
+
+    private final TokenRevocationList revocationList = mock(TokenRevocationList.class);
+    private final JwtUtil jwtUtil = new JwtUtil(revocationList, new SimpleMeterRegistry());
+
+    @Test
+    void verify_ReturnsClaims_ForIssuedToken() {
+        String token = jwtUtil.generateToken(User.builder().id("user123").entityType("USER").build());
+
+        Claims first = jwtUtil.verify(token);
+        Claims second = jwtUtil.verify(token);
+
+        assertEquals("user123", first.getSubject());
+        assertNotNull(first.getId());
+        assertSame(first, second);
+    }
+
+    @Test
+    void verify_ReturnsNull_OnceTokenIsRevoked() {
+        String token = jwtUtil.generateToken(User.builder().id("user123").entityType("USER").build());
+        assertNotNull(jwtUtil.verify(token));
+
+        when(revocationList.isRevoked(any(Claims.class))).thenReturn(true);
+
+        assertNull(jwtUtil.verify(token));
+    }
+
+    @Test
+    void verify_ReturnsNull_ForTamperedToken() {
+        String token = jwtUtil.generateToken(User.builder().id("user123").entityType("USER").build());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertNull(jwtUtil.verify(tampered));
+        assertNull(jwtUtil.verify("not-a-token"));
+        assertNull(jwtUtil.verify(null));
+    }
+}